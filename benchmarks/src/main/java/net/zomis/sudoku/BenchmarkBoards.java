@@ -0,0 +1,71 @@
+package net.zomis.sudoku;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The boards used by the benchmarks: the examples from {@link SudokuSolver} and the bundled 9x9 corpora
+ */
+final class BenchmarkBoards {
+
+	private BenchmarkBoards() {
+	}
+
+	static SudokuBoard example(String name) {
+		switch (name) {
+			case "fail": return SudokuSolver.fail();
+			case "classic": return SudokuSolver.classic();
+			case "small": return SudokuSolver.small();
+			case "extraZones": return SudokuSolver.extraZones();
+			case "hyper": return SudokuSolver.hyper();
+			case "samurai": return SudokuSolver.samurai();
+			case "incompleteClassic": return SudokuSolver.incompleteClassic();
+			case "hard": return SudokuSolver.hard();
+			default: throw new IllegalArgumentException("Unknown example: " + name);
+		}
+	}
+
+	static SudokuBoard factory(String name) {
+		switch (name) {
+			case "classicWith3x3Boxes": return SudokuFactory.classicWith3x3Boxes();
+			case "classicWith3x3BoxesAndHyperRegions": return SudokuFactory.classicWith3x3BoxesAndHyperRegions();
+			case "samurai": return SudokuFactory.samurai();
+			case "sizeAndBoxes": return SudokuFactory.sizeAndBoxes(4, 4, 2, 2);
+			case "ClassicWithSpecialBoxes": return SudokuFactory.ClassicWithSpecialBoxes(new String[] { "111233333", "111222333",
+					"144442223", "114555522", "444456666", "775555688", "977766668", "999777888", "999997888" });
+			default: throw new IllegalArgumentException("Unknown factory method: " + name);
+		}
+	}
+
+	/**
+	 * Reads a corpus with one puzzle per line, in the format of {@link SudokuBatchSolver}. The corpora named after
+	 * a {@link SudokuVariant}, such as <code>classic-25</code>, are of that variant and all others are classic 9x9.
+	 */
+	static List<SudokuBoard> corpus(String name) {
+		SudokuVariant variant = name.startsWith("classic-") ? SudokuVariant.forName(name) : SudokuVariant.CLASSIC;
+		InputStream stream = BenchmarkBoards.class.getResourceAsStream(name + ".txt");
+		if (stream == null)
+			throw new IllegalArgumentException("Unknown corpus: " + name);
+		List<SudokuBoard> boards = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty())
+					continue;
+				SudokuBoard board = variant.create();
+				board.readCells(line.getBytes(StandardCharsets.US_ASCII), 0);
+				boards.add(board);
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return boards;
+	}
+
+}
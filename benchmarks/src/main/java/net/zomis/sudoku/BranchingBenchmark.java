@@ -0,0 +1,50 @@
+package net.zomis.sudoku;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solves the hardest 9x9 puzzles and the 16x16 and 25x25 puzzles with each {@link BranchingStrategy}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BranchingBenchmark {
+
+	@Param({ "hardest", "classic-16", "classic-25" })
+	private String				corpus;
+
+	@Param({ "MINIMUM_REMAINING_VALUES", "DEGREE", "LEAST_CONSTRAINING_VALUE" })
+	private BranchingStrategy	strategy;
+
+	private List<SudokuBoard>	boards;
+	private int					next;
+
+	@Setup
+	public void setup() {
+		boards = BenchmarkBoards.corpus(corpus);
+	}
+
+	@Benchmark
+	public Collection<SudokuBoard> solve() {
+		SudokuBoard board = boards.get(next);
+		next = next + 1 == boards.size() ? 0 : next + 1;
+		return new SudokuBoard(board).setBranchingStrategy(strategy).solve();
+	}
+
+}
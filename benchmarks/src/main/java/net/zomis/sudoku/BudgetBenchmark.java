@@ -0,0 +1,62 @@
+package net.zomis.sudoku;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of checking a deadline, a node limit and a cancellation token during the search, with limits
+ * that are never reached, against solving without any
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BudgetBenchmark {
+
+	@Param({ "hardest", "classic-16" })
+	private String				corpus;
+
+	private List<SudokuBoard>	boards;
+	private SolveOptions		options;
+	private int					next;
+
+	@Setup
+	public void setup() {
+		boards = BenchmarkBoards.corpus(corpus);
+		options = new SolveOptions()
+				.setTimeout(1, TimeUnit.HOURS)
+				.setNodeLimit(Long.MAX_VALUE - 1)
+				.setCancellation(new SolveCancellation());
+	}
+
+	private SudokuBoard nextBoard() {
+		SudokuBoard board = boards.get(next);
+		next = next + 1 == boards.size() ? 0 : next + 1;
+		return new SudokuBoard(board);
+	}
+
+	@Benchmark
+	public Collection<SudokuBoard> unlimited() {
+		return nextBoard().solve();
+	}
+
+	@Benchmark
+	public SolveResult budget() {
+		return nextBoard().solve(options);
+	}
+
+}
@@ -0,0 +1,63 @@
+package net.zomis.sudoku;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Counts the solutions of the samurai example with the clues of two opposite corners removed, which leaves two
+ * independent parts with thousands of solutions each. Counting multiplies the counts of the parts, in sequence or in
+ * parallel, while enumerating visits every combination.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComponentBenchmark {
+
+	private static final int	CLEARED	= 4;
+
+	@Param({ "count", "parallel", "enumerate" })
+	private String		method;
+
+	@Param({ "10000" })
+	private long		limit;
+
+	private SudokuBoard	board;
+	private SudokuParallelSolver	parallel;
+
+	@Setup
+	public void setup() {
+		board = SudokuSolver.samurai();
+		int last = board.getWidth() - 1;
+		for (int y = 0; y < CLEARED; y++) {
+			for (int x = 0; x < CLEARED; x++) {
+				board.grid().setValue(board.topology().index(x, y), SudokuTile.CLEARED);
+				board.grid().setValue(board.topology().index(last - x, last - y), SudokuTile.CLEARED);
+			}
+		}
+		parallel = new SudokuParallelSolver();
+	}
+
+	@Benchmark
+	public long countSolutions() {
+		switch (method) {
+			case "count": return board.countSolutions(limit);
+			case "parallel": return parallel.countSolutions(board, limit);
+			case "enumerate": return board.solutions().limit(limit).count();
+			default: throw new IllegalArgumentException("Unknown method: " + method);
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package net.zomis.sudoku;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solves the puzzles of a bundled corpus one at a time, so every operation is one puzzle
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CorpusBenchmark {
+
+	@Param({ "easy", "hardest" })
+	private String				corpus;
+
+	@Param({ "BACKTRACKING", "DANCING_LINKS", "SAT" })
+	private SudokuEngine		engine;
+
+	private List<SudokuBoard>	boards;
+	private int					next;
+
+	@Setup
+	public void setup() {
+		boards = BenchmarkBoards.corpus(corpus);
+	}
+
+	@Benchmark
+	public Collection<SudokuBoard> solve() {
+		SudokuBoard board = boards.get(next);
+		next = next + 1 == boards.size() ? 0 : next + 1;
+		return new SudokuBoard(board).solve(engine);
+	}
+
+}
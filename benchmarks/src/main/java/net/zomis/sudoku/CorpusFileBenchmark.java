@@ -0,0 +1,81 @@
+package net.zomis.sudoku;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loads puzzles at random from a {@link SudokuCorpus} of a million classic puzzles, against parsing the same puzzles
+ * from lines of text held in memory
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CorpusFileBenchmark {
+
+	private static final int	PUZZLES	= 1000000;
+
+	private Path				file;
+	private SudokuCorpus		corpus;
+	private SudokuBoard			template;
+	private byte[][]			lines;
+	private long				random	= 1;
+
+	@Setup
+	public void setup() throws IOException {
+		List<SudokuBoard> boards = BenchmarkBoards.corpus("hardest");
+		template = SudokuVariant.CLASSIC.create();
+		lines = new byte[PUZZLES][];
+		for (int i = 0; i < lines.length; i++) {
+			lines[i] = new byte[template.getCellCount()];
+			boards.get(i % boards.size()).writeCells(lines[i], 0);
+		}
+		file = Files.createTempFile("corpus", ".bin");
+		try (SudokuCorpus.Writer writer = SudokuCorpus.create(file, SudokuVariant.CLASSIC, false)) {
+			for (int i = 0; i < PUZZLES; i++)
+				writer.add(boards.get(i % boards.size()));
+		}
+		corpus = SudokuCorpus.open(file);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.delete(file);
+	}
+
+	private int next(int bound) {
+		random ^= random << 13;
+		random ^= random >>> 7;
+		random ^= random << 17;
+		return (int) ((random >>> 1) % bound);
+	}
+
+	@Benchmark
+	public SudokuBoard mapped() {
+		return corpus.get(next(PUZZLES));
+	}
+
+	@Benchmark
+	public SudokuBoard text() {
+		SudokuBoard board = new SudokuBoard(template);
+		board.readCells(lines[next(PUZZLES)], 0);
+		return board;
+	}
+
+}
@@ -0,0 +1,34 @@
+package net.zomis.sudoku;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creates empty boards with each {@link SudokuFactory} method
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FactoryBenchmark {
+
+	@Param({ "classicWith3x3Boxes", "classicWith3x3BoxesAndHyperRegions", "samurai", "sizeAndBoxes", "ClassicWithSpecialBoxes" })
+	private String factory;
+
+	@Benchmark
+	public SudokuBoard create() {
+		return BenchmarkBoards.factory(factory);
+	}
+
+}
@@ -0,0 +1,46 @@
+package net.zomis.sudoku;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generates one puzzle per operation, with a new seed every time
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeneratorBenchmark {
+
+	@Param({ "CLASSIC", "HYPER", "SMALL" })
+	private SudokuVariant	variant;
+
+	@Param({ "NONE", "ROTATIONAL" })
+	private SudokuSymmetry	symmetry;
+
+	private SudokuGenerator	generator;
+	private long			seed;
+
+	@Setup
+	public void setup() {
+		generator = new SudokuGenerator(variant.create(), symmetry);
+	}
+
+	@Benchmark
+	public SudokuBoard generate() {
+		return generator.generate(seed++);
+	}
+
+}
@@ -0,0 +1,88 @@
+package net.zomis.sudoku;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solves killer sudokus without any given values, whose cages of two to five tiles are cut from generated solutions
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KillerBenchmark {
+
+	private static final int	PUZZLES	= 20;
+
+	private List<SudokuBoard>	boards;
+	private int					next;
+
+	@Setup
+	public void setup() {
+		SudokuGenerator generator = new SudokuGenerator(SudokuFactory.classicWith3x3Boxes(), SudokuSymmetry.NONE);
+		boards = new ArrayList<>(PUZZLES);
+		for (int seed = 0; seed < PUZZLES; seed++)
+			boards.add(killer(generator.generate(seed).solve().iterator().next(), new Random(seed)));
+	}
+
+	private static SudokuBoard killer(SudokuBoard solution, Random random) {
+		SudokuBoard board = SudokuFactory.classicWith3x3Boxes();
+		int width = board.getWidth();
+		int size = width * board.getHeight();
+		boolean[] caged = new boolean[size];
+		int[] directions = { 1, -1, width, -width };
+		for (int cell = 0; cell < size; cell++) {
+			if (caged[cell])
+				continue;
+			List<Integer> cage = new ArrayList<>();
+			Set<Integer> values = new HashSet<>();
+			cage.add(cell);
+			caged[cell] = true;
+			values.add(solution.tile(cell % width, cell / width).getValue());
+			int target = 2 + random.nextInt(4);
+			for (int tries = 0; tries < 20 && cage.size() < target; tries++) {
+				int from = cage.get(random.nextInt(cage.size()));
+				int to = from + directions[random.nextInt(directions.length)];
+				if (to < 0 || to >= size || caged[to] || Math.abs(to % width - from % width) > 1)
+					continue;
+				if (!values.add(solution.tile(to % width, to / width).getValue()))
+					continue;
+				caged[to] = true;
+				cage.add(to);
+			}
+			int sum = 0;
+			List<SudokuTile> tiles = new ArrayList<>();
+			for (int index : cage) {
+				sum += solution.tile(index % width, index / width).getValue();
+				tiles.add(board.tile(index % width, index / width));
+			}
+			board.createCage(sum, tiles);
+		}
+		return board;
+	}
+
+	@Benchmark
+	public Collection<SudokuBoard> solve() {
+		SudokuBoard board = boards.get(next);
+		next = next + 1 == boards.size() ? 0 : next + 1;
+		return new SudokuBoard(board).solve();
+	}
+
+}
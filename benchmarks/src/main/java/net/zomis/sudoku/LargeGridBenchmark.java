@@ -0,0 +1,50 @@
+package net.zomis.sudoku;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solves bundled 16x16 and 25x25 puzzles one at a time, with about 40% and 50% of the tiles given
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LargeGridBenchmark {
+
+	@Param({ "classic-16", "classic-25" })
+	private String				corpus;
+
+	@Param({ "BACKTRACKING", "DANCING_LINKS", "SAT" })
+	private SudokuEngine		engine;
+
+	private List<SudokuBoard>	boards;
+	private int					next;
+
+	@Setup
+	public void setup() {
+		boards = BenchmarkBoards.corpus(corpus);
+	}
+
+	@Benchmark
+	public Collection<SudokuBoard> solve() {
+		SudokuBoard board = boards.get(next);
+		next = next + 1 == boards.size() ? 0 : next + 1;
+		return new SudokuBoard(board).solve(engine);
+	}
+
+}
@@ -0,0 +1,181 @@
+package net.zomis.sudoku;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends the puzzles of a corpus to a {@link SudokuServer} from several client threads for a fixed number of requests,
+ * then reports the throughput, the latency seen by the clients and the count of each response status.
+ * <p>
+ * Without <code>--url</code>, a server is started in the same process on a free port.
+ */
+public class ServerLoadTest {
+
+	private static final double NANOS_PER_MILLI = 1000000.0;
+
+	private final URL			solveUrl;
+	private final List<byte[]>	puzzles;
+	private final SolveHistogram	latency	= new SolveHistogram();
+	private final LongAdder		ok			= new LongAdder();
+	private final LongAdder		rejected	= new LongAdder();
+	private final LongAdder		timedOut	= new LongAdder();
+	private final LongAdder		failed		= new LongAdder();
+
+	ServerLoadTest(URL solveUrl, List<byte[]> puzzles) {
+		this.solveUrl = solveUrl;
+		this.puzzles = puzzles;
+	}
+
+	/**
+	 * Sends <code>requests</code> puzzles in total from <code>clients</code> threads, each waiting for the answer
+	 * before sending the next one
+	 *
+	 * @return The wall time in nanoseconds
+	 */
+	long run(int clients, long requests) throws InterruptedException {
+		AtomicLong next = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(clients);
+		long time = System.nanoTime();
+		for (int i = 0; i < clients; i++) {
+			pool.execute(() -> {
+				long request;
+				while ((request = next.getAndIncrement()) < requests)
+					send(puzzles.get((int) (request % puzzles.size())));
+			});
+		}
+		pool.shutdown();
+		while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+			// Keep waiting until every request is answered
+		}
+		return System.nanoTime() - time;
+	}
+
+	private void send(byte[] puzzle) {
+		long time = System.nanoTime();
+		try {
+			HttpURLConnection connection = (HttpURLConnection) solveUrl.openConnection();
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(puzzle.length);
+			try (OutputStream output = connection.getOutputStream()) {
+				output.write(puzzle);
+			}
+			int status = connection.getResponseCode();
+			InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			if (input != null) {
+				try (InputStream body = input) {
+					readAll(body);
+				}
+			}
+			if (status == 200) {
+				ok.increment();
+				latency.record(System.nanoTime() - time);
+			}
+			else if (status == 503)
+				rejected.increment();
+			else if (status == 504)
+				timedOut.increment();
+			else
+				failed.increment();
+		}
+		catch (IOException e) {
+			failed.increment();
+		}
+	}
+
+	private static byte[] readAll(InputStream input) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = input.read(buffer)) >= 0)
+			output.write(buffer, 0, read);
+		return output.toByteArray();
+	}
+
+	private void report(long nanos) {
+		double seconds = nanos / NANOS_PER_MILLI / 1000;
+		System.out.printf("%d ok, %d rejected, %d timed out, %d failed in %.3f s, %.0f solved/second%n",
+				ok.sum(), rejected.sum(), timedOut.sum(), failed.sum(), seconds, ok.sum() / seconds);
+		System.out.printf("latency mean %.3f ms, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+				latency.getMean() / NANOS_PER_MILLI, latency.getPercentile(50) / NANOS_PER_MILLI,
+				latency.getPercentile(90) / NANOS_PER_MILLI, latency.getPercentile(99) / NANOS_PER_MILLI,
+				latency.getMax() / NANOS_PER_MILLI);
+	}
+
+	/**
+	 * Usage: <code>ServerLoadTest [--url http://127.0.0.1:8089] [--corpus hardest] [--clients n] [--requests n]
+	 * [--engine name] [--timeout ms]</code>
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String url = null;
+		String corpus = "hardest";
+		int clients = Runtime.getRuntime().availableProcessors() * 4;
+		long requests = 10000;
+		String query = "";
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--url"))
+				url = args[++i];
+			else if (args[i].equals("--corpus"))
+				corpus = args[++i];
+			else if (args[i].equals("--clients"))
+				clients = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--requests"))
+				requests = Long.parseLong(args[++i]);
+			else if (args[i].equals("--engine"))
+				query += "&engine=" + args[++i];
+			else if (args[i].equals("--timeout"))
+				query += "&timeout=" + args[++i];
+			else {
+				System.err.println("Usage: ServerLoadTest [--url http://127.0.0.1:8089] [--corpus name] [--clients n] [--requests n] [--engine name] [--timeout ms]");
+				System.exit(1);
+			}
+		}
+
+		List<SudokuBoard> boards = BenchmarkBoards.corpus(corpus);
+		List<byte[]> puzzles = new ArrayList<>(boards.size());
+		for (SudokuBoard board : boards) {
+			byte[] line = new byte[board.getCellCount()];
+			board.writeCells(line, 0);
+			puzzles.add(line);
+		}
+		String variant = corpus.startsWith("classic-") ? corpus : "classic";
+
+		SudokuServer server = null;
+		ExecutorService executor = null;
+		if (url == null) {
+			SudokuServer.enableNoDelay();
+			executor = Executors.newCachedThreadPool();
+			server = new SudokuServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), executor,
+					Runtime.getRuntime().availableProcessors() * 2, SudokuServer.DEFAULT_TIMEOUT_MILLIS);
+			server.start();
+			url = "http://127.0.0.1:" + server.getPort();
+		}
+		try {
+			ServerLoadTest test = new ServerLoadTest(new URL(url + "/solve?variant=" + variant + query), puzzles);
+			test.report(test.run(clients, requests));
+			try (InputStream stats = new URL(url + "/stats").openStream()) {
+				System.out.print(new String(readAll(stats), StandardCharsets.UTF_8));
+			}
+		}
+		finally {
+			if (server != null) {
+				server.stop(0);
+				executor.shutdownNow();
+			}
+		}
+	}
+
+}
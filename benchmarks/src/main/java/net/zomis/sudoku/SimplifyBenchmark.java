@@ -0,0 +1,49 @@
+package net.zomis.sudoku;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simplifies a copy of each example board as far as possible without guessing, and copies the boards
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimplifyBenchmark {
+
+	@Param({ "fail", "classic", "small", "extraZones", "hyper", "samurai", "incompleteClassic", "hard" })
+	private String		example;
+
+	private SudokuBoard	board;
+
+	@Setup
+	public void setup() {
+		board = BenchmarkBoards.example(example);
+	}
+
+	@Benchmark
+	public SudokuProgress simplify() {
+		SudokuBoard copy = new SudokuBoard(board);
+		copy.resetSolutions();
+		return copy.simplify();
+	}
+
+	@Benchmark
+	public SudokuBoard copy() {
+		return new SudokuBoard(board);
+	}
+
+}
@@ -0,0 +1,46 @@
+package net.zomis.sudoku;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solves a copy of each example board from {@link SudokuSolver#main(String[])} with each engine
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolveBenchmark {
+
+	@Param({ "fail", "classic", "small", "extraZones", "hyper", "samurai", "incompleteClassic", "hard" })
+	private String			example;
+
+	@Param({ "BACKTRACKING", "DANCING_LINKS", "SAT" })
+	private SudokuEngine	engine;
+
+	private SudokuBoard		board;
+
+	@Setup
+	public void setup() {
+		board = BenchmarkBoards.example(example);
+	}
+
+	@Benchmark
+	public Collection<SudokuBoard> solve() {
+		return new SudokuBoard(board).solve(engine);
+	}
+
+}
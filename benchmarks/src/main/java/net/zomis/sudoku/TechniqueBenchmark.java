@@ -0,0 +1,76 @@
+package net.zomis.sudoku;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solves the puzzles of a bundled corpus with no techniques, each technique on its own and all of them,
+ * counting the guesses made per puzzle next to the time taken
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TechniqueBenchmark {
+
+	@Param({ "easy", "hardest" })
+	private String				corpus;
+
+	@Param({ "NONE", "LOCKED_CANDIDATES", "NAKED_PAIRS", "HIDDEN_PAIRS", "NAKED_TRIPLES", "HIDDEN_TRIPLES", "X_WING", "ALL" })
+	private String				techniques;
+
+	private List<SudokuBoard>	boards;
+	private int					next;
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long guesses;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			guesses = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		boards = BenchmarkBoards.corpus(corpus);
+		Set<SudokuTechnique> enabled;
+		switch (techniques) {
+			case "NONE": enabled = EnumSet.noneOf(SudokuTechnique.class); break;
+			case "ALL": enabled = EnumSet.allOf(SudokuTechnique.class); break;
+			default: enabled = EnumSet.of(SudokuTechnique.valueOf(techniques)); break;
+		}
+		for (SudokuBoard board : boards)
+			board.setTechniques(enabled);
+	}
+
+	@Benchmark
+	public Collection<SudokuBoard> solve(Counters counters) {
+		SudokuBoard board = new SudokuBoard(boards.get(next));
+		next = next + 1 == boards.size() ? 0 : next + 1;
+		Collection<SudokuBoard> solutions = board.solve();
+		counters.guesses += board.getSolveStats().getGuesses();
+		return solutions;
+	}
+
+}
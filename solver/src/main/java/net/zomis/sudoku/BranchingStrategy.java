@@ -0,0 +1,92 @@
+package net.zomis.sudoku;
+
+/**
+ * How the backtracking search chooses the tile to guess a value for, and the order in which the values are tried.
+ * <p>
+ * Every strategy guesses for a tile with the fewest candidates left. Tiles with the same number of candidates
+ * are found in constant time per candidate count from an index that the grid keeps up to date.
+ */
+public enum BranchingStrategy {
+
+	/**
+	 * The first tile with the fewest candidates, trying the values in increasing order
+	 */
+	MINIMUM_REMAINING_VALUES {
+		@Override
+		int chooseTile(SudokuGrid grid) {
+			return grid.minimumRemainingValues(2);
+		}
+	},
+
+	/**
+	 * Of the tiles with the fewest candidates, the one with the most peers without a value,
+	 * since its value constrains the most other tiles
+	 */
+	DEGREE {
+		@Override
+		int chooseTile(SudokuGrid grid) {
+			int first = grid.minimumRemainingValues(2);
+			if (first < 0)
+				return first;
+			int count = Long.bitCount(grid.candidates(first));
+			int chosen = -1;
+			int chosenDegree = -1;
+			int[][] cellRules = grid.topology.cellRules();
+			for (int word = 0; word < grid.bucketWords(); word++) {
+				for (long bits = grid.bucket(count, word); bits != 0; bits &= bits - 1) {
+					int cell = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+					if (cellRules[cell].length == 0)
+						continue;
+					int degree = grid.unsolvedPeers(cell);
+					if (degree > chosenDegree) {
+						chosen = cell;
+						chosenDegree = degree;
+					}
+				}
+			}
+			return chosen;
+		}
+	},
+
+	/**
+	 * The first tile with the fewest candidates, trying first the values that are candidates for the fewest of
+	 * its peers, as they leave the most options open for the rest of the board
+	 */
+	LEAST_CONSTRAINING_VALUE {
+		@Override
+		int chooseTile(SudokuGrid grid) {
+			return grid.minimumRemainingValues(2);
+		}
+
+		@Override
+		long chooseValue(SudokuGrid grid, int cell, long remaining) {
+			long chosen = 0;
+			int chosenCount = Integer.MAX_VALUE;
+			for (long candidates = remaining; candidates != 0; candidates &= candidates - 1) {
+				long mask = Long.lowestOneBit(candidates);
+				int count = grid.peersWithCandidate(cell, mask);
+				if (count < chosenCount) {
+					chosen = mask;
+					chosenCount = count;
+				}
+			}
+			return chosen;
+		}
+	};
+
+	/**
+	 * @return The tile to guess a value for, or -1 if every tile in a rule has been decided
+	 */
+	abstract int chooseTile(SudokuGrid grid);
+
+	/**
+	 * Chooses the next value to try for a tile, with the grid in the same state as when the tile was chosen
+	 *
+	 * @param remaining The values not tried yet, as a mask
+	 * @return The mask of the value to try next
+	 */
+	long chooseValue(SudokuGrid grid, int cell, long remaining) {
+		return Long.lowestOneBit(remaining);
+	}
+
+}
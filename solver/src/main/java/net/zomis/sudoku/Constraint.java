@@ -0,0 +1,38 @@
+package net.zomis.sudoku;
+
+/**
+ * A restriction on the values of a group of tiles, which the solver enforces by removing candidates that cannot be
+ * part of a solution.
+ * <p>
+ * Every {@link SudokuRule} is a constraint that all values in it are different, propagated by the solver's own code.
+ * Other constraints, such as {@link SumConstraint} and {@link IncreasingConstraint}, are added to a board with
+ * {@link SudokuBoard#addConstraint(Constraint)}. Their {@link #propagate(SudokuDomains)} is called along with the
+ * rules whenever one of their tiles has changed, both when simplifying the board and at every node of the search.
+ * <p>
+ * Constraints may only restrict tiles that are in at least one rule. They are shared by every board with the same
+ * topology, from any number of threads, so they must not keep any state of their own between calls.
+ */
+public interface Constraint {
+
+	String getDescription();
+
+	/**
+	 * @return The tiles of this constraint, by their index <code>y * width + x</code>
+	 */
+	int[] getCells();
+
+	/**
+	 * Removes the candidates of the tiles that cannot be part of any solution of this constraint.
+	 * Once all tiles have a value, this must fail if they break the constraint.
+	 *
+	 * @return {@link SudokuProgress#FAILED} if the constraint cannot be satisfied, {@link SudokuProgress#PROGRESS}
+	 * if any candidates were removed
+	 */
+	SudokuProgress propagate(SudokuDomains domains);
+
+	/**
+	 * @return False if the values set so far break this constraint
+	 */
+	boolean checkValid(SudokuDomains domains);
+
+}
@@ -0,0 +1,83 @@
+package net.zomis.sudoku;
+import java.util.Arrays;
+
+/**
+ * A chain of tiles whose values strictly increase along it, such as a thermometer starting at its bulb, or a
+ * greater-than sign between two tiles.
+ * <p>
+ * One pass along the chain raises the lowest candidate of each tile above the lowest candidate of the tile before it,
+ * and one pass back lowers the highest candidate of each tile below that of the tile after it. This leaves exactly
+ * the candidates that are part of an increasing assignment of the whole chain.
+ */
+public final class IncreasingConstraint implements Constraint {
+
+	private final String	description;
+	private final int[]		cells;
+
+	/**
+	 * @param cells The tiles in increasing order of their values, by their index <code>y * width + x</code>
+	 */
+	public IncreasingConstraint(int... cells) {
+		if (cells.length < 2)
+			throw new IllegalArgumentException("A chain needs at least two tiles. Was " + cells.length);
+		this.cells = cells.clone();
+		this.description = cells.length == 2 ? "Less than" : "Thermometer";
+	}
+
+	@Override
+	public String getDescription() {
+		return description;
+	}
+
+	@Override
+	public int[] getCells() {
+		return cells.clone();
+	}
+
+	@Override
+	public SudokuProgress propagate(SudokuDomains domains) {
+		SudokuProgress result = SudokuProgress.NO_PROGRESS;
+		int previous = 0;
+		for (int cell : cells) {
+			if (domains.eliminate(cell, SudokuGrid.allValuesMask(previous)) != 0)
+				result = SudokuProgress.PROGRESS;
+			long candidates = domains.candidates(cell);
+			if (candidates == 0)
+				return SudokuProgress.FAILED;
+			previous = SumConstraint.lowest(candidates);
+		}
+		int next = domains.getMaxValue() + 1;
+		for (int i = cells.length - 1; i >= 0; i--) {
+			if (domains.eliminate(cells[i], ~SudokuGrid.allValuesMask(next - 1)) != 0)
+				result = SudokuProgress.PROGRESS;
+			long candidates = domains.candidates(cells[i]);
+			if (candidates == 0)
+				return SudokuProgress.FAILED;
+			next = SumConstraint.highest(candidates);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean checkValid(SudokuDomains domains) {
+		int previousIndex = -1;
+		int previousValue = 0;
+		for (int i = 0; i < cells.length; i++) {
+			int value = domains.value(cells[i]);
+			if (value == SudokuTile.CLEARED)
+				continue;
+			// The tiles in between need room for values of their own
+			if (value - previousValue < i - previousIndex)
+				return false;
+			previousIndex = i;
+			previousValue = value;
+		}
+		return domains.getMaxValue() - previousValue >= cells.length - 1 - previousIndex;
+	}
+
+	@Override
+	public String toString() {
+		return description + " " + Arrays.toString(cells);
+	}
+
+}
@@ -0,0 +1,70 @@
+package net.zomis.sudoku;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the solutions of a search and stops it when the {@link SolveOptions} say so.
+ * <p>
+ * The node limit is compared at every node, which costs no more than reading the counter. The clock and the
+ * cancellation are only checked every {@link #CHECK_INTERVAL} nodes.
+ */
+final class SolveBudget implements SudokuSolutionVisitor {
+
+	static final int CHECK_INTERVAL = 32;
+
+	private final SudokuGrid		grid;
+	private final long				solutionLimit;
+	private final long				nodeLimit;
+	private final long				deadline;
+	private final SolveCancellation	cancellation;
+	private final List<SudokuGrid>	solutions	= new ArrayList<>();
+	private int						countdown	= 1;
+	private SolveResult.Status		status;
+
+	/**
+	 * @param start The time the search starts, from {@link System#nanoTime()}
+	 */
+	SolveBudget(SudokuGrid grid, SolveOptions options, long start) {
+		this.grid = grid;
+		this.solutionLimit = options.getSolutionLimit();
+		this.nodeLimit = options.getNodeLimit();
+		this.deadline = options.deadline(start);
+		this.cancellation = options.getCancellation();
+	}
+
+	@Override
+	public boolean solution(SudokuGrid solution) {
+		solutions.add(new SudokuGrid(solution));
+		if (solutions.size() < solutionLimit)
+			return true;
+		status = SolveResult.Status.SOLUTION_LIMIT;
+		return false;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		if (status != null)
+			return true;
+		if (grid.stats().nodes >= nodeLimit)
+			status = SolveResult.Status.NODE_LIMIT;
+		else if (--countdown > 0)
+			return false;
+		else {
+			countdown = CHECK_INTERVAL;
+			if (cancellation != null && cancellation.isCancelled())
+				status = SolveResult.Status.CANCELLED;
+			else if (System.nanoTime() - deadline >= 0)
+				status = SolveResult.Status.DEADLINE;
+		}
+		return status != null;
+	}
+
+	/**
+	 * @param finished The result of the search, true if it explored the whole tree
+	 */
+	SolveResult result(boolean finished) {
+		SolveResult.Status result = finished ? SolveResult.Status.FINISHED : status;
+		return new SolveResult(result, SudokuBoard.toBoards(solutions), grid.stats());
+	}
+
+}
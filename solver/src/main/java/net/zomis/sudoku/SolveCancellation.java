@@ -0,0 +1,19 @@
+package net.zomis.sudoku;
+
+/**
+ * A token that stops the solves using it, see {@link SolveOptions#setCancellation(SolveCancellation)}.
+ * It can be cancelled from any thread, and once cancelled it stays cancelled.
+ */
+public final class SolveCancellation {
+
+	private volatile boolean cancelled;
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+}
@@ -0,0 +1,89 @@
+package net.zomis.sudoku;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, with buckets that are exact below 32 and
+ * no wider than 1/16 of their lower bound above that, so percentiles are within about 6%.
+ */
+final class SolveHistogram {
+
+	private static final int	SUB_BUCKET_BITS	= 4;
+	private static final int	SUB_BUCKETS		= 1 << SUB_BUCKET_BITS;
+
+	private final AtomicLongArray	counts	= new AtomicLongArray(Long.SIZE * SUB_BUCKETS);
+	private final LongAdder			count	= new LongAdder();
+	private final LongAdder			sum		= new LongAdder();
+	private final AtomicLong		max		= new AtomicLong();
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) Math.max(value, 0);
+		int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * @return The largest value that falls into the bucket
+	 */
+	static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	void record(long value) {
+		counts.incrementAndGet(bucket(value));
+		count.increment();
+		sum.add(value);
+		if (value > max.get())
+			max.accumulateAndGet(value, Math::max);
+	}
+
+	long getCount() {
+		return count.sum();
+	}
+
+	double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @param percentile A percentile between 0 and 100
+	 * @return The value that at least <code>percentile</code> percent of the recorded values are at or below,
+	 * rounded up to the end of its bucket
+	 */
+	long getPercentile(double percentile) {
+		long total = 0;
+		for (int i = 0; i < counts.length(); i++)
+			total += counts.get(i);
+		if (total == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank)
+				return Math.min(highestValue(i), max.get());
+		}
+		return max.get();
+	}
+
+	void reset() {
+		for (int i = 0; i < counts.length(); i++)
+			counts.set(i, 0);
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+}
@@ -0,0 +1,103 @@
+package net.zomis.sudoku;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits for {@link SudokuBoard#solve(SolveOptions)}: the engine to use, the number of solutions to find and the
+ * budget of the search, as a deadline, a largest number of nodes and a {@link SolveCancellation} that can stop it
+ * from another thread. Without any limits the whole tree is explored, the same as {@link SudokuBoard#solve()}.
+ * <p>
+ * The deadline and the cancellation are checked every {@value SolveBudget#CHECK_INTERVAL} nodes, so the search
+ * can run for up to that many nodes past them.
+ */
+public final class SolveOptions {
+
+	private SudokuEngine		engine			= SudokuEngine.BACKTRACKING;
+	private long				solutionLimit	= Long.MAX_VALUE;
+	private long				nodeLimit		= Long.MAX_VALUE;
+	private long				timeoutNanos	= Long.MAX_VALUE;
+	private long				deadline;
+	private boolean				hasDeadline;
+	private SolveCancellation	cancellation;
+
+	public SudokuEngine getEngine() {
+		return engine;
+	}
+
+	public SolveOptions setEngine(SudokuEngine engine) {
+		if (engine == null)
+			throw new IllegalArgumentException("engine cannot be null");
+		this.engine = engine;
+		return this;
+	}
+
+	public long getSolutionLimit() {
+		return solutionLimit;
+	}
+
+	/**
+	 * @param solutionLimit The number of solutions after which to stop, 2 to check if the solution is unique
+	 */
+	public SolveOptions setSolutionLimit(long solutionLimit) {
+		if (solutionLimit < 1)
+			throw new IllegalArgumentException("solutionLimit must be at least 1. Was " + solutionLimit);
+		this.solutionLimit = solutionLimit;
+		return this;
+	}
+
+	public long getNodeLimit() {
+		return nodeLimit;
+	}
+
+	/**
+	 * @param nodeLimit The number of nodes, as counted by {@link SolveStats#getNodes()}, after which to stop
+	 */
+	public SolveOptions setNodeLimit(long nodeLimit) {
+		if (nodeLimit < 1)
+			throw new IllegalArgumentException("nodeLimit must be at least 1. Was " + nodeLimit);
+		this.nodeLimit = nodeLimit;
+		return this;
+	}
+
+	/**
+	 * Stops the search once it has run for <code>timeout</code>, counted from the start of each solve
+	 */
+	public SolveOptions setTimeout(long timeout, TimeUnit unit) {
+		if (timeout < 0)
+			throw new IllegalArgumentException("timeout cannot be negative. Was " + timeout);
+		this.timeoutNanos = unit.toNanos(timeout);
+		this.hasDeadline = false;
+		return this;
+	}
+
+	/**
+	 * Stops the search at a fixed point in time, such as the deadline of a request that arrived earlier
+	 *
+	 * @param nanoTime The deadline as a value of {@link System#nanoTime()}
+	 */
+	public SolveOptions setDeadline(long nanoTime) {
+		this.deadline = nanoTime;
+		this.hasDeadline = true;
+		return this;
+	}
+
+	/**
+	 * @param start The time the solve starts, from {@link System#nanoTime()}
+	 * @return The time at which to stop, to be compared by subtraction since it may have overflowed
+	 */
+	long deadline(long start) {
+		return hasDeadline ? deadline : start + timeoutNanos;
+	}
+
+	public SolveCancellation getCancellation() {
+		return cancellation;
+	}
+
+	/**
+	 * @param cancellation A token to stop the search from another thread, or null
+	 */
+	public SolveOptions setCancellation(SolveCancellation cancellation) {
+		this.cancellation = cancellation;
+		return this;
+	}
+
+}
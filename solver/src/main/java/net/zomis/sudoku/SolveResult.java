@@ -0,0 +1,68 @@
+package net.zomis.sudoku;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The outcome of {@link SudokuBoard#solve(SolveOptions)}: the solutions found, and whether the search explored the
+ * whole tree or was cut off first. The solutions of a search that was cut off are the ones found before it stopped.
+ */
+public final class SolveResult {
+
+	public enum Status {
+		/** The whole tree was explored, so the solutions are all solutions of the board */
+		FINISHED,
+		/** The search stopped after finding as many solutions as the limit */
+		SOLUTION_LIMIT,
+		/** The search passed its deadline */
+		DEADLINE,
+		/** The search examined as many nodes as the limit */
+		NODE_LIMIT,
+		/** The search was stopped by its {@link SolveCancellation} */
+		CANCELLED
+	}
+
+	private final Status					status;
+	private final Collection<SudokuBoard>	solutions;
+	private final SolveStats				stats;
+
+	SolveResult(Status status, Collection<SudokuBoard> solutions, SolveStats stats) {
+		this.status = status;
+		this.solutions = Collections.unmodifiableCollection(solutions);
+		this.stats = stats;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return True if the whole tree was explored
+	 */
+	public boolean isFinished() {
+		return status == Status.FINISHED;
+	}
+
+	/**
+	 * @return True if the search ran out of time or nodes or was cancelled, so there may be solutions it did not find
+	 */
+	public boolean isCutOff() {
+		return status != Status.FINISHED && status != Status.SOLUTION_LIMIT;
+	}
+
+	/**
+	 * @return The solutions found, in the order they were found
+	 */
+	public Collection<SudokuBoard> getSolutions() {
+		return solutions;
+	}
+
+	public SolveStats getStats() {
+		return stats;
+	}
+
+	@Override
+	public String toString() {
+		return status + " with " + solutions.size() + " solutions after " + stats.getNodes() + " nodes";
+	}
+
+}
@@ -0,0 +1,127 @@
+package net.zomis.sudoku;
+
+/**
+ * Counters for one solve of a board, see {@link SudokuBoard#getSolveStats()}.
+ * <p>
+ * The counters are plain fields updated by the thread doing the search, so they cost no more than
+ * an increment each. Only the propagation at every node of the backtracking search is timed.
+ */
+public final class SolveStats {
+
+	private static final int	TECHNIQUES	= SudokuTechnique.values().length;
+
+	private final SudokuEngine	engine;
+
+	long	nodes;
+	long	guesses;
+	long	backtracks;
+	long	simplifyIterations;
+	int		peakDepth;
+	long	propagationNanos;
+	long	totalNanos;
+	long	solutions;
+	final long[]	eliminations	= new long[TECHNIQUES];
+
+	SolveStats(SudokuEngine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Adds the counters of a search of a subtree that started at <code>depth</code>
+	 */
+	void add(SolveStats other, int depth) {
+		nodes += other.nodes;
+		guesses += other.guesses;
+		backtracks += other.backtracks;
+		simplifyIterations += other.simplifyIterations;
+		peakDepth = Math.max(peakDepth, depth + other.peakDepth);
+		propagationNanos += other.propagationNanos;
+		solutions += other.solutions;
+		for (int i = 0; i < eliminations.length; i++)
+			eliminations[i] += other.eliminations[i];
+	}
+
+	void enter(int depth) {
+		if (depth > peakDepth)
+			peakDepth = depth;
+	}
+
+	public SudokuEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * @return The number of states examined by the search
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return The number of values that were tried for a tile without being known to be correct
+	 */
+	public long getGuesses() {
+		return guesses;
+	}
+
+	/**
+	 * @return The number of states that turned out to have no solution
+	 */
+	public long getBacktracks() {
+		return backtracks;
+	}
+
+	/**
+	 * @return The number of times a rule was simplified
+	 */
+	public long getSimplifyIterations() {
+		return simplifyIterations;
+	}
+
+	/**
+	 * @return The largest number of guesses in effect at the same time
+	 */
+	public int getPeakDepth() {
+		return peakDepth;
+	}
+
+	public long getSolutions() {
+		return solutions;
+	}
+
+	/**
+	 * @return The number of candidates removed by a technique
+	 */
+	public long getEliminations(SudokuTechnique technique) {
+		return eliminations[technique.ordinal()];
+	}
+
+	/**
+	 * @return The wall time of the whole solve
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * @return The time spent simplifying the board during the search
+	 */
+	public long getPropagationNanos() {
+		return propagationNanos;
+	}
+
+	/**
+	 * @return The time spent on everything except propagation, which is mostly choosing tiles and backtracking
+	 */
+	public long getBranchingNanos() {
+		return Math.max(0, totalNanos - propagationNanos);
+	}
+
+	@Override
+	public String toString() {
+		return engine + ": " + solutions + " solutions, " + nodes + " nodes, " + guesses + " guesses, "
+				+ backtracks + " backtracks, " + simplifyIterations + " simplify iterations, peak depth " + peakDepth
+				+ ", " + totalNanos / 1000000.0 + " ms of which " + propagationNanos / 1000000.0 + " ms propagation";
+	}
+
+}
@@ -0,0 +1,205 @@
+package net.zomis.sudoku;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Aggregates the {@link SolveStats} of many solves, from any number of threads: totals of all counters and
+ * histograms of the solve latency and of the number of nodes per solve.
+ * <p>
+ * Recording only updates striped counters and one bucket of each histogram, without any locking.
+ * The registry can be registered as an MXBean to be watched from JConsole or any other JMX client.
+ */
+public class SolveStatsRegistry implements SolveStatsRegistryMXBean {
+
+	public static final String DEFAULT_NAME = "net.zomis.sudoku:type=SolveStats";
+
+	private static final double NANOS_PER_MILLI = 1000000.0;
+
+	private final SolveHistogram	latency				= new SolveHistogram();
+	private final SolveHistogram	nodesPerSolve		= new SolveHistogram();
+	private final LongAdder			noSolution			= new LongAdder();
+	private final LongAdder			nodes				= new LongAdder();
+	private final LongAdder			guesses				= new LongAdder();
+	private final LongAdder			backtracks			= new LongAdder();
+	private final LongAdder			simplifyIterations	= new LongAdder();
+	private final LongAdder			propagationNanos	= new LongAdder();
+	private final LongAdder			branchingNanos		= new LongAdder();
+	private final LongAccumulator	peakDepth			= new LongAccumulator(Math::max, 0);
+
+	public void record(SolveStats stats) {
+		latency.record(stats.getTotalNanos());
+		nodesPerSolve.record(stats.getNodes());
+		if (stats.getSolutions() == 0)
+			noSolution.increment();
+		nodes.add(stats.getNodes());
+		guesses.add(stats.getGuesses());
+		backtracks.add(stats.getBacktracks());
+		simplifyIterations.add(stats.getSimplifyIterations());
+		propagationNanos.add(stats.getPropagationNanos());
+		branchingNanos.add(stats.getBranchingNanos());
+		peakDepth.accumulate(stats.getPeakDepth());
+	}
+
+	/**
+	 * Registers this registry with the platform MBean server under {@link #DEFAULT_NAME}
+	 */
+	public ObjectName register() {
+		return register(DEFAULT_NAME);
+	}
+
+	public ObjectName register(String name) {
+		try {
+			ObjectName objectName = new ObjectName(name);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+			return objectName;
+		}
+		catch (JMException e) {
+			throw new IllegalStateException("Unable to register " + name, e);
+		}
+	}
+
+	public void unregister(ObjectName name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		}
+		catch (JMException e) {
+			throw new IllegalStateException("Unable to unregister " + name, e);
+		}
+	}
+
+	/**
+	 * @param percentile A percentile between 0 and 100
+	 * @return The solve latency at the percentile, accurate to about 6%
+	 */
+	public double getLatencyMillis(double percentile) {
+		return latency.getPercentile(percentile) / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * @param percentile A percentile between 0 and 100
+	 * @return The number of nodes per solve at the percentile, accurate to about 6%
+	 */
+	public long getNodes(double percentile) {
+		return nodesPerSolve.getPercentile(percentile);
+	}
+
+	@Override
+	public long getSolveCount() {
+		return latency.getCount();
+	}
+
+	@Override
+	public long getNoSolutionCount() {
+		return noSolution.sum();
+	}
+
+	@Override
+	public long getNodes() {
+		return nodes.sum();
+	}
+
+	@Override
+	public long getGuesses() {
+		return guesses.sum();
+	}
+
+	@Override
+	public long getBacktracks() {
+		return backtracks.sum();
+	}
+
+	@Override
+	public long getSimplifyIterations() {
+		return simplifyIterations.sum();
+	}
+
+	@Override
+	public long getPeakDepth() {
+		return peakDepth.get();
+	}
+
+	@Override
+	public double getPropagationMillis() {
+		return propagationNanos.sum() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getBranchingMillis() {
+		return branchingNanos.sum() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getMeanMillis() {
+		return latency.getMean() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getMaxMillis() {
+		return latency.getMax() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP50Millis() {
+		return getLatencyMillis(50);
+	}
+
+	@Override
+	public double getP90Millis() {
+		return getLatencyMillis(90);
+	}
+
+	@Override
+	public double getP99Millis() {
+		return getLatencyMillis(99);
+	}
+
+	@Override
+	public double getP999Millis() {
+		return getLatencyMillis(99.9);
+	}
+
+	@Override
+	public long getNodesP50() {
+		return getNodes(50);
+	}
+
+	@Override
+	public long getNodesP99() {
+		return getNodes(99);
+	}
+
+	@Override
+	public long getNodesMax() {
+		return nodesPerSolve.getMax();
+	}
+
+	/**
+	 * Clears all counters. Solves recorded at the same time may be partly lost.
+	 */
+	@Override
+	public void reset() {
+		latency.reset();
+		nodesPerSolve.reset();
+		noSolution.reset();
+		nodes.reset();
+		guesses.reset();
+		backtracks.reset();
+		simplifyIterations.reset();
+		propagationNanos.reset();
+		branchingNanos.reset();
+		peakDepth.reset();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d solves, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms, nodes p50 %d p99 %d max %d",
+				getSolveCount(), getP50Millis(), getP90Millis(), getP99Millis(), getMaxMillis(),
+				getNodesP50(), getNodesP99(), getNodesMax());
+	}
+
+}
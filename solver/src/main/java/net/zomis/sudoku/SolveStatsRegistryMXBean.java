@@ -0,0 +1,46 @@
+package net.zomis.sudoku;
+
+/**
+ * The attributes of a {@link SolveStatsRegistry} as seen through JMX. Times are in milliseconds.
+ */
+public interface SolveStatsRegistryMXBean {
+
+	long getSolveCount();
+
+	long getNoSolutionCount();
+
+	long getNodes();
+
+	long getGuesses();
+
+	long getBacktracks();
+
+	long getSimplifyIterations();
+
+	long getPeakDepth();
+
+	double getPropagationMillis();
+
+	double getBranchingMillis();
+
+	double getMeanMillis();
+
+	double getMaxMillis();
+
+	double getP50Millis();
+
+	double getP90Millis();
+
+	double getP99Millis();
+
+	double getP999Millis();
+
+	long getNodesP50();
+
+	long getNodesP99();
+
+	long getNodesMax();
+
+	void reset();
+
+}
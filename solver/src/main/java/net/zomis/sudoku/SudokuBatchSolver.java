@@ -0,0 +1,221 @@
+package net.zomis.sudoku;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves files with one puzzle per line on a pool of worker threads.
+ * <p>
+ * A puzzle line has one character per cell, row by row, with '.' or '0' for an empty cell and '/' for a blocked cell.
+ * Empty lines and lines starting with '#' are skipped. For every puzzle one line is written, in the same order
+ * as the input: the first solution in the same format, '-' if the puzzle has no solution or '!' if the line is
+ * not a valid puzzle for the variant.
+ * <p>
+ * Lines are parsed directly from the bytes read, and at most a bounded number of puzzles are waiting to be solved
+ * or written at any time. The {@link SolveStats} of every puzzle are recorded in a {@link SolveStatsRegistry},
+ * which {@link #main(String[])} registers with JMX.
+ */
+public class SudokuBatchSolver {
+
+	private static final byte[]	NO_SOLUTION	= { '-', '\n' };
+	private static final byte[]	INVALID		= { '!', '\n' };
+	private static final int	PENDING_PER_THREAD	= 256;
+
+	private final SudokuBoard	template;
+	private final int			cellCount;
+	private final int			threads;
+	private final SolveStatsRegistry	stats	= new SolveStatsRegistry();
+
+	public SudokuBatchSolver(SudokuVariant variant, int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1. Was " + threads);
+		this.template = variant.create();
+		template.checkCharacterFormat();
+		this.cellCount = template.getCellCount();
+		this.threads = threads;
+	}
+
+	/**
+	 * Solves all puzzles from <code>input</code> and writes one line per puzzle to <code>output</code>
+	 *
+	 * @return The number of puzzles
+	 */
+	public long solve(InputStream input, OutputStream output) throws IOException, InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "sudoku-batch-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		BlockingQueue<Future<byte[]>> pending = new ArrayBlockingQueue<>(threads * PENDING_PER_THREAD);
+		FutureTask<byte[]> endOfInput = new FutureTask<>(() -> null);
+		FutureTask<Void> writer = new FutureTask<>(() -> {
+			Future<byte[]> result;
+			while ((result = pending.take()) != endOfInput)
+				output.write(result.get());
+			output.flush();
+			return null;
+		});
+		Thread writerThread = new Thread(writer, "sudoku-batch-writer");
+		writerThread.start();
+
+		long count = 0;
+		try {
+			byte[] buffer = new byte[1 << 16];
+			int start = 0;
+			int end = 0;
+			int scanned = 0;
+			boolean eof = false;
+			while (true) {
+				int newline = indexOf(buffer, (byte) '\n', scanned, end);
+				if (newline < 0 && !eof) {
+					// Move the incomplete line to the front of the buffer and read more
+					if (start > 0) {
+						System.arraycopy(buffer, start, buffer, 0, end - start);
+						end -= start;
+						scanned = end;
+						start = 0;
+					}
+					if (end == buffer.length)
+						buffer = Arrays.copyOf(buffer, buffer.length * 2);
+					int read = input.read(buffer, end, buffer.length - end);
+					if (read < 0)
+						eof = true;
+					else
+						end += read;
+					continue;
+				}
+				int lineEnd = newline < 0 ? end : newline;
+				int length = lineEnd - start;
+				if (length > 0 && buffer[lineEnd - 1] == '\r')
+					length--;
+				if (length > 0 && buffer[start] != '#') {
+					submit(pool, pending, writer, parse(buffer, start, length));
+					count++;
+				}
+				if (newline < 0)
+					break;
+				start = newline + 1;
+				scanned = start;
+			}
+			submit(pool, pending, writer, endOfInput);
+			writer.get();
+		}
+		catch (ExecutionException e) {
+			throw new IOException("Unable to write solutions", e.getCause());
+		}
+		finally {
+			writer.cancel(true);
+			pool.shutdownNow();
+		}
+		return count;
+	}
+
+	private static int indexOf(byte[] buffer, byte b, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buffer[i] == b)
+				return i;
+		}
+		return -1;
+	}
+
+	private Future<byte[]> parse(byte[] buffer, int start, int length) {
+		if (length != cellCount)
+			return new FutureTask<>(() -> INVALID);
+		SudokuBoard board = new SudokuBoard(template);
+		try {
+			board.readCells(buffer, start);
+		}
+		catch (IllegalArgumentException e) {
+			return new FutureTask<>(() -> INVALID);
+		}
+		return new FutureTask<>(() -> solve(board));
+	}
+
+	private void submit(ExecutorService pool, BlockingQueue<Future<byte[]>> pending, Future<?> writer,
+			Future<byte[]> task) throws InterruptedException, ExecutionException {
+		pool.execute((FutureTask<byte[]>) task);
+		// Wait for room in the queue, unless the writer has stopped taking from it
+		while (!pending.offer(task, 100, TimeUnit.MILLISECONDS)) {
+			if (writer.isDone())
+				writer.get();
+		}
+	}
+
+	private byte[] solve(SudokuBoard board) {
+		byte[] line = new byte[cellCount + 1];
+		board.search(SudokuEngine.BACKTRACKING, solution -> {
+			new SudokuBoard(solution).writeCells(line, 0);
+			return false;
+		});
+		SolveStats solveStats = board.getSolveStats();
+		stats.record(solveStats);
+		if (solveStats.getSolutions() == 0)
+			return NO_SOLUTION;
+		line[cellCount] = '\n';
+		return line;
+	}
+
+	/**
+	 * @return The statistics of all puzzles solved so far
+	 */
+	public SolveStatsRegistry getStats() {
+		return stats;
+	}
+
+	/**
+	 * Usage: <code>SudokuBatchSolver [--variant classic] [--threads n] input|- [output]</code>
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		SudokuVariant variant = SudokuVariant.CLASSIC;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String inputName = null;
+		String outputName = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--variant"))
+				variant = SudokuVariant.forName(args[++i]);
+			else if (args[i].equals("--threads"))
+				threads = Integer.parseInt(args[++i]);
+			else if (inputName == null)
+				inputName = args[i];
+			else
+				outputName = args[i];
+		}
+		if (inputName == null) {
+			System.err.println("Usage: SudokuBatchSolver [--variant classic|hyper|samurai|small|classic-16|classic-25] [--threads n] input|- [output]");
+			System.exit(1);
+		}
+
+		InputStream input = inputName.equals("-") ? System.in : new FileInputStream(inputName);
+		OutputStream output = new BufferedOutputStream(outputName == null ? System.out : new FileOutputStream(outputName), 1 << 16);
+		SudokuBatchSolver solver = new SudokuBatchSolver(variant, threads);
+		solver.getStats().register();
+		long time = System.nanoTime();
+		long count;
+		try {
+			count = solver.solve(input, output);
+		}
+		finally {
+			input.close();
+			if (outputName != null)
+				output.close();
+		}
+		time = System.nanoTime() - time;
+		double seconds = time / 1000000000.0;
+		System.err.printf("Solved %d puzzles in %.3f s, %.0f puzzles/second%n", count, seconds, count / seconds);
+		System.err.println(solver.getStats());
+	}
+
+}
@@ -0,0 +1,224 @@
+package net.zomis.sudoku;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads and writes boards in a compact binary format, directly from and to a {@link ByteBuffer}.
+ * <p>
+ * A record starts with the id of its {@link SudokuVariant} and a byte of flags. If the board has blocked tiles that
+ * its variant does not have, the flags say so and a bitmap of all blocked tiles follows, one bit per tile in row
+ * order. Then come the values of all tiles that are not blocked, packed with as few bits as the largest value needs,
+ * 4 bits for a classic board, starting from the lowest bit of each byte. An empty tile has the value 0. Only boards
+ * with the rules of their variant, no other {@link Constraint}s and at least its blocked tiles can be written.
+ * <p>
+ * A classic board takes 43 bytes. Boards without extra blocked tiles always take {@link #recordSize(SudokuVariant)}
+ * bytes, so files of them can be indexed without reading them.
+ */
+public final class SudokuBinaryFormat {
+
+	private static final int	HEADER_SIZE		= 2;
+	private static final int	FLAG_BLOCKED	= 1;
+
+	private SudokuBinaryFormat() {
+	}
+
+	/**
+	 * @return The number of bits used for each value
+	 */
+	static int bitsPerValue(int maxValue) {
+		return Integer.SIZE - Integer.numberOfLeadingZeros(maxValue);
+	}
+
+	/**
+	 * @return The size of a record for a board of the variant without extra blocked tiles
+	 */
+	public static int recordSize(SudokuVariant variant) {
+		SudokuTopology topology = variant.topology();
+		return HEADER_SIZE + valuesSize(topology, openCells(topology));
+	}
+
+	private static int valuesSize(SudokuTopology topology, int cells) {
+		return (cells * bitsPerValue(topology.getMaxValue()) + Byte.SIZE - 1) / Byte.SIZE;
+	}
+
+	private static int bitmapSize(SudokuTopology topology) {
+		return (topology.size() + Byte.SIZE - 1) / Byte.SIZE;
+	}
+
+	private static int openCells(SudokuTopology topology) {
+		int count = 0;
+		for (int cell = 0; cell < topology.size(); cell++) {
+			if (!topology.isBlocked(cell))
+				count++;
+		}
+		return count;
+	}
+
+	private static boolean hasExtraBlocked(SudokuTopology topology, SudokuTopology template) {
+		for (int cell = 0; cell < topology.size(); cell++) {
+			if (topology.isBlocked(cell) != template.isBlocked(cell))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return The size of the record for a board
+	 */
+	public static int size(SudokuVariant variant, SudokuBoard board) {
+		SudokuTopology topology = checkLayout(variant, board);
+		SudokuTopology template = variant.topology();
+		if (!hasExtraBlocked(topology, template))
+			return recordSize(variant);
+		return HEADER_SIZE + bitmapSize(topology) + valuesSize(topology, openCells(topology));
+	}
+
+	/**
+	 * Checks that a record of the variant can hold the board: it must have the same size and rules as the variant,
+	 * no other constraints and at least the blocked tiles of the variant, since a record can only add blocked tiles
+	 */
+	private static SudokuTopology checkLayout(SudokuVariant variant, SudokuBoard board) {
+		SudokuTopology topology = board.topology();
+		SudokuTopology template = variant.topology();
+		if (topology.getConstraintCount() > 0)
+			throw new IllegalArgumentException("Board has " + topology.getConstraintCount()
+					+ " constraints besides its rules, which a record cannot hold");
+		if (topology == template)
+			return topology;
+		if (topology.getWidth() != template.getWidth() || topology.getHeight() != template.getHeight()
+				|| topology.getMaxValue() != template.getMaxValue() || topology.getRuleCount() != template.getRuleCount())
+			throw new IllegalArgumentException("Board does not have the topology of " + variant);
+		for (int rule = 0; rule < topology.getRuleCount(); rule++) {
+			if (!Arrays.equals(topology.rule(rule), template.rule(rule)))
+				throw new IllegalArgumentException("Board does not have the rules of " + variant + ": "
+						+ topology.description(rule) + " differs");
+		}
+		for (int cell = 0; cell < topology.size(); cell++) {
+			if (template.isBlocked(cell) && !topology.isBlocked(cell))
+				throw new IllegalArgumentException("Tile " + cell + " is blocked in " + variant + " but not on the board");
+		}
+		return topology;
+	}
+
+	/**
+	 * Writes a board at the position of the buffer and advances the position past it
+	 */
+	public static void write(SudokuVariant variant, SudokuBoard board, ByteBuffer buffer) {
+		buffer.position(write(variant, board, buffer, buffer.position()));
+	}
+
+	/**
+	 * Writes a board at an index of the buffer, without changing its position
+	 *
+	 * @return The index after the record
+	 */
+	public static int write(SudokuVariant variant, SudokuBoard board, ByteBuffer buffer, int index) {
+		SudokuTopology topology = checkLayout(variant, board);
+		SudokuGrid grid = board.grid();
+		boolean extraBlocked = hasExtraBlocked(topology, variant.topology());
+		buffer.put(index++, (byte) variant.getId());
+		buffer.put(index++, (byte) (extraBlocked ? FLAG_BLOCKED : 0));
+		if (extraBlocked) {
+			for (int cell = 0; cell < topology.size(); cell += Byte.SIZE) {
+				int bits = 0;
+				for (int i = 0; i < Byte.SIZE && cell + i < topology.size(); i++) {
+					if (topology.isBlocked(cell + i))
+						bits |= 1 << i;
+				}
+				buffer.put(index++, (byte) bits);
+			}
+		}
+
+		int bitsPerValue = bitsPerValue(topology.getMaxValue());
+		long pending = 0;
+		int pendingBits = 0;
+		for (int cell = 0; cell < topology.size(); cell++) {
+			if (topology.isBlocked(cell))
+				continue;
+			pending |= (long) grid.value(cell) << pendingBits;
+			pendingBits += bitsPerValue;
+			while (pendingBits >= Byte.SIZE) {
+				buffer.put(index++, (byte) pending);
+				pending >>>= Byte.SIZE;
+				pendingBits -= Byte.SIZE;
+			}
+		}
+		if (pendingBits > 0)
+			buffer.put(index++, (byte) pending);
+		return index;
+	}
+
+	/**
+	 * @return The variant of the record at an index of the buffer
+	 */
+	public static SudokuVariant variant(ByteBuffer buffer, int index) {
+		return SudokuVariant.forId(buffer.get(index) & 0xFF);
+	}
+
+	/**
+	 * Reads the board at the position of the buffer and advances the position past it
+	 *
+	 * @throws IllegalArgumentException If the record is not valid
+	 */
+	public static SudokuBoard read(ByteBuffer buffer) {
+		SudokuBoard board = board(buffer, buffer.position());
+		buffer.position(read(buffer, buffer.position(), board));
+		return board;
+	}
+
+	/**
+	 * Reads the board at an index of the buffer, without changing its position
+	 *
+	 * @throws IllegalArgumentException If the record is not valid
+	 */
+	public static SudokuBoard read(ByteBuffer buffer, int index) {
+		SudokuBoard board = board(buffer, index);
+		read(buffer, index, board);
+		return board;
+	}
+
+	private static SudokuBoard board(ByteBuffer buffer, int index) {
+		return variant(buffer, index).create();
+	}
+
+	/**
+	 * Reads a record into an empty board of its variant
+	 *
+	 * @return The index after the record
+	 */
+	static int read(ByteBuffer buffer, int index, SudokuBoard board) {
+		index++;
+		int flags = buffer.get(index++);
+		if ((flags & FLAG_BLOCKED) != 0) {
+			SudokuTopology topology = board.topology();
+			for (int cell = 0; cell < topology.size(); cell += Byte.SIZE) {
+				int bits = buffer.get(index++);
+				for (int i = 0; i < Byte.SIZE && cell + i < topology.size(); i++) {
+					if ((bits & (1 << i)) != 0 && !topology.isBlocked(cell + i))
+						board.block(cell + i);
+				}
+			}
+		}
+
+		SudokuTopology topology = board.topology();
+		int bitsPerValue = bitsPerValue(topology.getMaxValue());
+		int mask = (1 << bitsPerValue) - 1;
+		long pending = 0;
+		int pendingBits = 0;
+		for (int cell = 0; cell < topology.size(); cell++) {
+			if (topology.isBlocked(cell))
+				continue;
+			if (pendingBits < bitsPerValue) {
+				pending |= (long) (buffer.get(index++) & 0xFF) << pendingBits;
+				pendingBits += Byte.SIZE;
+			}
+			int value = (int) pending & mask;
+			pending >>>= bitsPerValue;
+			pendingBits -= bitsPerValue;
+			if (value != SudokuTile.CLEARED)
+				board.setValue(cell, value);
+		}
+		return index;
+	}
+
+}
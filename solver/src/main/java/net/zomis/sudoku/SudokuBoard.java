@@ -0,0 +1,517 @@
+package net.zomis.sudoku;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import net.zomis.common.ImmutablePoint;
+
+/**
+ * A board made of {@link SudokuTile}s and {@link SudokuRule}s, which are views of a shared
+ * {@link SudokuTopology} and of the board's own {@link SudokuGrid} state.
+ */
+public class SudokuBoard {
+	
+	private int	mMaxValue;
+	private int	rowAddIndex;
+	
+	private SudokuTopology	topology;
+	private SudokuGrid		grid;
+
+	private SudokuTile[]	tileViews;
+	private SudokuRule[]	ruleViews;
+
+	public SudokuBoard(int width, int height) {
+		this(width, height, Math.max(width, height));
+	}
+
+	public SudokuBoard(int width, int height, int maxValue) {
+		mMaxValue = maxValue;
+		topology = new SudokuTopology(width, height, maxValue);
+		grid = new SudokuGrid(topology);
+		// If maxValue is not width or height, then adding line rules would be stupid
+		if (mMaxValue == width || mMaxValue == height) {
+			IntStream.range(0, getWidth ()).forEach(x -> createRule("Row " + x, getColumn(x)));
+			IntStream.range(0, getHeight()).forEach(y -> createRule("Col " + y, getRow(y)));
+		}
+	}
+
+
+	/**
+	 * Creates an empty board sharing a topology, such as {@link SudokuVariant#topology()}, which is frozen if it was not already
+	 */
+	public SudokuBoard(SudokuTopology topology) {
+		this(new SudokuGrid(topology));
+	}
+
+	public SudokuBoard(SudokuBoard copy) {
+		this(new SudokuGrid(copy.grid));
+	}
+
+	/**
+	 * Creates a board for <code>grid</code>, which will share its topology with any other board using it
+	 */
+	SudokuBoard(SudokuGrid grid) {
+		this.mMaxValue = grid.topology.getMaxValue();
+		this.topology = grid.topology.freeze();
+		this.grid = grid;
+	}
+
+	SudokuTopology topology() {
+		return topology;
+	}
+
+	SudokuGrid grid() {
+		return grid;
+	}
+
+	int getMaxValue() {
+		return mMaxValue;
+	}
+
+	/**
+	 * @return The deduction techniques used when simplifying and solving this board
+	 */
+	public Set<SudokuTechnique> getTechniques() {
+		Set<SudokuTechnique> result = EnumSet.noneOf(SudokuTechnique.class);
+		for (SudokuTechnique technique : SudokuTechnique.values()) {
+			if ((grid.getTechniques() & technique.mask()) != 0)
+				result.add(technique);
+		}
+		return result;
+	}
+
+	/**
+	 * Chooses the deduction techniques to use when simplifying and solving this board, in addition to the rules.
+	 * Copies of the board keep the techniques. They are only used by {@link SudokuEngine#BACKTRACKING}.
+	 */
+	public SudokuBoard setTechniques(Set<SudokuTechnique> techniques) {
+		int mask = 0;
+		for (SudokuTechnique technique : techniques)
+			mask |= technique.mask();
+		grid.setTechniques(mask);
+		return this;
+	}
+
+	public BranchingStrategy getBranchingStrategy() {
+		return grid.getBranching();
+	}
+
+	/**
+	 * Chooses how the backtracking search picks tiles and values to guess. Copies of the board keep the strategy.
+	 */
+	public SudokuBoard setBranchingStrategy(BranchingStrategy strategy) {
+		grid.setBranching(strategy);
+		return this;
+	}
+
+	private SudokuTopology mutableTopology() {
+		SudokuTopology mutable = topology.mutable();
+		if (mutable != topology) {
+			topology = mutable;
+			SudokuGrid previous = grid;
+			grid = new SudokuGrid(mutable, grid.state);
+			grid.setTechniques(previous.getTechniques());
+			grid.setBranching(previous.getBranching());
+		}
+		return topology;
+	}
+
+	void addBoxesCount(int boxesX, int boxesY) {
+		int sizeX = getWidth() / boxesX;
+		int sizeY = getHeight() / boxesY;
+
+		Collection<ImmutablePoint> boxes = SudokuFactory.box(boxesX, boxesY);
+		for (ImmutablePoint pos : boxes) {
+			Collection<SudokuTile> boxTiles = TileBox(pos.getX() * sizeX,
+					pos.getY() * sizeY, sizeX, sizeY);
+			createRule("Box at (" + pos.getX() + ", " + pos.getY() + ")",
+					boxTiles);
+		}
+	}
+
+	/**
+	 * Sets the values of the next row, from one character per tile: '.' or '0' for an empty tile, '/' for a blocked
+	 * tile, '1' to '9' and then 'A' to 'Z' in any case for the values 10 to 35.
+	 * <p>
+	 * For boards with larger values the row can instead be given as numbers separated by spaces or commas,
+	 * with the same characters for empty and blocked tiles, such as <code>"36 . 1 /"</code>.
+	 */
+	public SudokuBoard addRow(String s) {
+		// Method for initializing a board from string
+		if (s.indexOf(' ') >= 0 || s.indexOf(',') >= 0) {
+			String[] values = s.trim().split("[\\s,]+");
+			checkRow(values.length);
+			for (int i = 0; i < values.length; i++)
+				setCell(topology.index(i, rowAddIndex), values[i]);
+		}
+		else {
+			checkRow(s.length());
+			for (int i = 0; i < s.length(); i++)
+				setCell(topology.index(i, rowAddIndex), s.charAt(i));
+		}
+		rowAddIndex++;
+		return this;
+	}
+
+	private void checkRow(int length) {
+		if (length > getWidth() || rowAddIndex >= getHeight())
+			throw new IndexOutOfBoundsException("Row " + rowAddIndex + " with " + length
+					+ " tiles is outside of the board");
+	}
+
+	/**
+	 * Sets every cell of the board from one character per cell, row by row, using the same characters as {@link #addRow(String)}
+	 *
+	 * @param chars The characters, which may be in an encoding with one byte per character
+	 * @param offset The position of the character for the top left cell
+	 */
+	void readCells(byte[] chars, int offset) {
+		for (int cell = 0; cell < topology.size(); cell++)
+			setCell(cell, chars[offset + cell]);
+	}
+
+	/**
+	 * Writes one character per cell, row by row, in the format read by {@link #readCells(byte[], int)}
+	 *
+	 * @throws IllegalArgumentException If the board has values too large to be written as one character
+	 */
+	void writeCells(byte[] chars, int offset) {
+		checkCharacterFormat();
+		for (int cell = 0; cell < topology.size(); cell++)
+			chars[offset + cell] = (byte) (topology.isBlocked(cell) ? '/' : toChar(grid.value(cell)));
+	}
+
+	/**
+	 * @return True if every value of the board can be written as one character, as {@link #writeCells(byte[], int)} needs
+	 */
+	boolean hasCharacterFormat() {
+		return mMaxValue < Character.MAX_RADIX;
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the values of the board cannot be written as one character per tile
+	 */
+	void checkCharacterFormat() {
+		if (!hasCharacterFormat())
+			throw new IllegalArgumentException("Values up to " + mMaxValue
+					+ " cannot be written as one character per tile");
+	}
+
+	/**
+	 * @return The character for a value in the format of {@link #addRow(String)}, with '.' for an empty tile
+	 */
+	static char toChar(int value) {
+		if (value >= Character.MAX_RADIX)
+			throw new IllegalStateException("Value " + value + " cannot be written as a single character");
+		return value == SudokuTile.CLEARED ? '.' : Character.toUpperCase(Character.forDigit(value, Character.MAX_RADIX));
+	}
+
+	int getCellCount() {
+		return topology.size();
+	}
+
+	private void setCell(int cell, int ch) {
+		if (ch == '/') {
+			if (!topology.isBlocked(cell))
+				block(cell);
+			return;
+		}
+		setValue(cell, ch == '.' ? 0 : Character.digit(ch, Character.MAX_RADIX));
+	}
+
+	private void setCell(int cell, String value) {
+		if (value.length() == 1 && !Character.isDigit(value.charAt(0)))
+			setCell(cell, value.charAt(0));
+		else
+			setValue(cell, Integer.parseInt(value));
+	}
+
+	void setValue(int cell, int value) {
+		if (value > mMaxValue)
+			throw new IllegalArgumentException(
+					"SudokuTile Value cannot be greater than " + mMaxValue
+							+ ". Was " + value);
+		if (value < SudokuTile.CLEARED)
+			throw new IllegalArgumentException(
+					"SudokuTile Value cannot be zero or smaller. Was " + value);
+		grid.setValue(cell, value);
+	}
+
+	void block(int cell) {
+		grid.clearCandidates(cell);
+		mutableTopology().block(cell);
+	}
+
+	public boolean checkValid() {
+		return grid.checkValid();
+	}
+
+	public void createRule(String description, Collection<SudokuTile> tiles) {
+		if (tiles.stream().anyMatch(tile -> tile.IsBlocked()))
+			throw new IllegalArgumentException("Unable to create rule since a tile in it is blocked: " + tiles);
+		mutableTopology().addRule(description, cells(tiles));
+		ruleViews = null;
+	}
+	
+	public void createRule(String description, Stream<SudokuTile> tiles) {
+		createRule(description, tiles.collect(Collectors.toList()));
+	}
+
+	private int[] cells(Collection<SudokuTile> tiles) {
+		return tiles.stream().mapToInt(tile -> topology.index(tile.getX(), tile.getY())).distinct().toArray();
+	}
+
+	/**
+	 * Adds a constraint besides the rules, on tiles that are all in at least one rule. A board with such constraints
+	 * is always solved by backtracking, is not cached by {@link SudokuSolutionCache} and cannot be written with
+	 * {@link SudokuBinaryFormat}.
+	 */
+	public void addConstraint(Constraint constraint) {
+		mutableTopology().addConstraint(constraint);
+	}
+
+	/**
+	 * Adds a killer cage, whose values are all different and add up to <code>sum</code>
+	 */
+	public void createCage(int sum, Collection<SudokuTile> tiles) {
+		addConstraint(new SumConstraint(sum, true, cells(tiles)));
+	}
+
+	/**
+	 * Adds a thermometer, whose values increase from the first tile, the bulb, to the last
+	 */
+	public void createThermometer(List<SudokuTile> tiles) {
+		addConstraint(new IncreasingConstraint(cells(tiles)));
+	}
+
+	/**
+	 * Adds a greater-than sign between two tiles
+	 */
+	public void createLessThan(SudokuTile smaller, SudokuTile greater) {
+		addConstraint(new IncreasingConstraint(smaller.getIndex(), greater.getIndex()));
+	}
+
+	/**
+	 * @return The rules of this board followed by its other constraints
+	 */
+	public List<Constraint> getConstraints() {
+		List<Constraint> constraints = new ArrayList<>(getRules());
+		for (int constraint = 0; constraint < topology.getConstraintCount(); constraint++)
+			constraints.add(topology.constraint(constraint));
+		return constraints;
+	}
+
+	private Stream<SudokuTile> getColumn(int col) {
+		return IntStream.range(0, getHeight()).mapToObj(i -> tile(col, i));
+	}
+	public int getHeight() {
+		return topology.getHeight();
+	}
+
+	private Collection<SudokuTile> getRow(int row) {
+		return IntStream.range(0, getWidth()).mapToObj(i -> tile(i, row))
+				.collect(Collectors.toList());
+	}
+
+	public int getWidth() {
+		return topology.getWidth();
+	}
+
+	/**
+	 * Prints the values row by row, as one character per tile or, for boards with values of 36 or more, as numbers
+	 * separated by spaces with '/' for a blocked tile, both of which {@link #addRow(String)} reads
+	 */
+	public void output() {
+		boolean characters = hasCharacterFormat();
+		for (int y = 0; y < getHeight(); y++) {
+			StringBuilder row = new StringBuilder();
+			for (int x = 0; x < getWidth(); x++) {
+				int cell = topology.index(x, y);
+				int value = grid.value(cell);
+				if (characters)
+					row.append(value <= 9 ? String.valueOf(value) : String.valueOf(toChar(value)));
+				else {
+					if (x > 0)
+						row.append(' ');
+					row.append(topology.isBlocked(cell) ? "/" : String.valueOf(value));
+				}
+			}
+			System.out.println(row);
+		}
+	}
+
+	void outputRules() {
+//		rules.stream().forEach(System.out::println);
+		for (SudokuRule rule : getRules()) {
+			System.out.println(String.join(",", rule.getTiles().toString()) + " - " + rule);
+		}
+	}
+
+	void resetSolutions() {
+		grid.resetCandidates();
+	}
+
+	SudokuProgress simplify() {
+		return grid.propagate();
+	}
+
+	public Collection<SudokuBoard> solve() {
+		return solve(SudokuEngine.BACKTRACKING);
+	}
+
+	public Collection<SudokuBoard> solve(SudokuEngine engine) {
+		List<SudokuGrid> solutions = new ArrayList<>();
+		search(engine, solution -> solutions.add(new SudokuGrid(solution)));
+
+		return toBoards(solutions);
+	}
+
+	/**
+	 * Finds the solutions of this board within the limits of the options, stopping the search once it runs out of
+	 * time or nodes, is cancelled or has found enough solutions
+	 *
+	 * @return The solutions found and whether the search explored the whole tree
+	 */
+	public SolveResult solve(SolveOptions options) {
+		SolveBudget budget = new SolveBudget(grid, options, System.nanoTime());
+		boolean finished = search(options.getEngine(), budget);
+		return budget.result(finished);
+	}
+
+	/**
+	 * Resets the candidates of this board and searches for its solutions in place, recording a new {@link SolveStats}
+	 *
+	 * @return False if the search was stopped by the visitor, true if the whole tree was explored
+	 */
+	boolean search(SudokuEngine engine, SudokuSolutionVisitor visitor) {
+		resetSolutions();
+		SolveStats stats = grid.resetStats(engine);
+		long time = System.nanoTime();
+		try {
+			return engine.search(grid, visitor);
+		}
+		finally {
+			stats.totalNanos = System.nanoTime() - time;
+		}
+	}
+
+	/**
+	 * @return The counters of the most recent {@link #solve()} of this board, or of the one still running
+	 */
+	public SolveStats getSolveStats() {
+		return grid.stats();
+	}
+
+	/**
+	 * Lazily finds the solutions of this board, searching depth-first only as far as needed for the next solution.
+	 * The board itself is not modified.
+	 * <p>
+	 * Short-circuiting operations stop the search, so <code>solutions().findFirst()</code> only searches for
+	 * one solution and <code>solutions().limit(2).count()</code> is enough to tell if the solution is unique.
+	 */
+	public Stream<SudokuBoard> solutions() {
+		SudokuSolutionIterator iterator = new SudokuSolutionIterator(new SudokuGrid(grid));
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+				Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+	}
+
+	/**
+	 * @return An iterator over the solutions of this board, which searches for each solution when it is requested
+	 * @see #solutions()
+	 */
+	public Iterator<SudokuBoard> solutionIterator() {
+		return new SudokuSolutionIterator(new SudokuGrid(grid));
+	}
+
+	/**
+	 * Counts the solutions of this board without building them. The board itself is not modified.
+	 * <p>
+	 * Parts of the board that no longer share a rule, such as the outer grids of a samurai board once the boxes they
+	 * share with the middle grid are filled, are searched separately and their counts multiplied.
+	 * Use a limit of 2 to check if the solution is unique.
+	 *
+	 * @param limit The count at which to stop searching
+	 * @return The number of solutions, or <code>limit</code> if there are at least that many
+	 */
+	public long countSolutions(long limit) {
+		SudokuGrid copy = new SudokuGrid(grid);
+		copy.resetCandidates();
+		return copy.countSolutions(limit);
+	}
+
+	static Collection<SudokuBoard> toBoards(List<SudokuGrid> solutions) {
+		Collection<SudokuBoard> results = new ArrayList<>(solutions.size());
+		for (SudokuGrid solution : solutions)
+			results.add(new SudokuBoard(solution));
+		return results;
+	}
+
+	public SudokuTile tile(int x, int y) {
+		if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight())
+			throw new IndexOutOfBoundsException("Position (" + x + ", " + y + ") is outside of the board");
+		return tile(topology.index(x, y));
+	}
+
+	SudokuTile tile(int cell) {
+		if (tileViews == null)
+			tileViews = new SudokuTile[topology.size()];
+		SudokuTile tile = tileViews[cell];
+		if (tile == null) {
+			tile = new SudokuTile(this, cell, topology.x(cell), topology.y(cell));
+			tileViews[cell] = tile;
+		}
+		return tile;
+	}
+
+	Collection<SudokuTile> TileBox(int startX, int startY, int sizeX, int sizeY) {
+		Collection<ImmutablePoint> positions = SudokuFactory.box(sizeX, sizeY);
+		return positions.stream()
+				.map(pos -> tile(startX + pos.getX(), startY + pos.getY()))
+				.collect(Collectors.toList());
+	}
+
+	public boolean isComplete() {
+		return grid.isComplete();
+	}
+
+	/**
+	 * @return True if every tile that is not blocked is in at least one rule
+	 */
+	public boolean isRulesValid() {
+		return topology.freeze().coversAllCells();
+	}
+
+	public Set<SudokuRule> getRules() {
+		if (ruleViews == null) {
+			ruleViews = new SudokuRule[topology.getRuleCount()];
+			for (int rule = 0; rule < ruleViews.length; rule++)
+				ruleViews[rule] = new SudokuRule(this, rule);
+		}
+		Set<SudokuRule> rules = new HashSet<>();
+		for (SudokuRule rule : ruleViews)
+			rules.add(rule);
+		return rules;
+	}
+
+	public void highlightRule(SudokuRule rule) {
+		Set<SudokuTile> ruleTiles = rule.getTiles();
+		for (int y = 0; y < getHeight(); y++) {
+			for (int x = 0; x < getWidth(); x++) {
+				if (ruleTiles.contains(tile(x, y)))
+					System.out.print(" ");
+				else System.out.print(tile(x, y).toStringSimple());
+			}
+			System.out.println();
+		}
+	}
+}
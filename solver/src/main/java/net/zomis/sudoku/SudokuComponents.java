@@ -0,0 +1,253 @@
+package net.zomis.sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the solutions of a {@link SudokuGrid} by splitting it into independent parts whenever it can.
+ * <p>
+ * Two tiles without a value depend on each other if they share a rule or any other constraint. Once the tiles joining
+ * two parts of a board have values, such as the shared boxes of a samurai board, no rule contains tiles without a value
+ * from both parts, so each part is searched on its own and the number of solutions is the product of the numbers for
+ * each part. This is checked after every guess, so a guess in one part never multiplies the work needed in another.
+ * <p>
+ * Given a {@link ForkJoinPool}, large parts are counted in parallel, each on its own copy of the grid.
+ * Otherwise the search runs in place on the grid, with every change rolled back afterwards.
+ */
+final class SudokuComponents {
+
+	/** The smallest number of tiles without a value in every part for the parts to be counted in parallel */
+	private static final int	PARALLEL_SIZE	= 16;
+
+	private final SudokuGrid	grid;
+	private final ForkJoinPool	pool;
+	private final SudokuTrail	trail	= new SudokuTrail();
+	private final int[][]		peers;
+	private final int[][]		cellConstraints;
+	private final int[][]		constraintCells;
+	private final int[]			seen;
+	private final int[]			queue;
+	private int					stamp;
+
+	/**
+	 * @param pool The pool to count large parts in, or null to count everything in the current thread
+	 */
+	SudokuComponents(SudokuGrid grid, ForkJoinPool pool) {
+		grid.ensureIndexed();
+		this.grid = grid;
+		this.pool = pool;
+		this.peers = grid.topology.peers();
+		this.cellConstraints = grid.topology.cellConstraints();
+		this.constraintCells = grid.topology.constraintCells();
+		this.seen = new int[grid.topology.size()];
+		this.queue = new int[grid.topology.size()];
+	}
+
+	/**
+	 * Counts the solutions of the grid, whose candidates have been reset
+	 *
+	 * @param limit The count at which to stop searching
+	 * @return The number of solutions, or <code>limit</code> if there are at least that many
+	 */
+	long count(long limit) {
+		if (limit <= 0)
+			return 0;
+		int[][] cellRules = grid.topology.cellRules();
+		int[] cells = new int[grid.topology.size()];
+		int size = 0;
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cellRules[cell].length > 0)
+				cells[size++] = cell;
+		}
+		cells = Arrays.copyOf(cells, size);
+		long count = pool != null ? pool.invoke(new CountTask(cells, limit, 0)) : search(cells, limit, 0);
+		grid.stats().solutions += count;
+		return count;
+	}
+
+	/**
+	 * Counts the solutions of the grid with the changes made so far, attaching the trail while doing so
+	 */
+	private long search(int[] cells, long limit, int depth) {
+		grid.attach(trail);
+		int checkpoint = trail.checkpoint();
+		try {
+			return count(cells, limit, depth);
+		}
+		finally {
+			trail.undo(grid.state, checkpoint);
+			grid.clearDirty();
+			grid.detach(trail);
+		}
+	}
+
+	/**
+	 * Propagates the last guess and counts the solutions for the tiles of one part, which are all other tiles
+	 * without a value that it can affect. The grid is left as it was.
+	 */
+	private long count(int[] cells, long limit, int depth) {
+		SolveStats stats = grid.stats();
+		stats.nodes++;
+		stats.enter(depth);
+		int checkpoint = trail.checkpoint();
+		try {
+			long time = System.nanoTime();
+			SudokuProgress progress = grid.propagate();
+			stats.propagationNanos += System.nanoTime() - time;
+			if (progress == SudokuProgress.FAILED) {
+				stats.backtracks++;
+				return 0;
+			}
+
+			int[][] parts = split(cells);
+			if (parts.length == 0)
+				return 1;
+			if (parts.length == 1)
+				return branch(parts[0], limit, depth);
+			if (pool != null && parts[0].length >= PARALLEL_SIZE)
+				return countInParallel(parts, limit, depth);
+
+			// Once the product reaches the limit, the other parts only need to have a solution
+			long product = 1;
+			for (int[] part : parts) {
+				long count = branch(part, (limit - 1) / product + 1, depth);
+				if (count == 0)
+					return 0;
+				product = multiply(product, count, limit);
+			}
+			return product;
+		}
+		finally {
+			trail.undo(grid.state, checkpoint);
+		}
+	}
+
+	/**
+	 * Guesses each candidate of the tile in the part with the fewest candidates and counts the solutions of each guess
+	 */
+	private long branch(int[] part, long limit, int depth) {
+		int cell = part[0];
+		for (int other : part) {
+			if (Long.bitCount(grid.candidates(other)) < Long.bitCount(grid.candidates(cell)))
+				cell = other;
+		}
+
+		long count = 0;
+		long candidates = grid.candidates(cell);
+		while (candidates != 0 && count < limit) {
+			long candidate = grid.getBranching().chooseValue(grid, cell, candidates);
+			candidates &= ~candidate;
+			int checkpoint = trail.checkpoint();
+			grid.stats().guesses++;
+			grid.assign(cell, SudokuGrid.singleValue(candidate));
+			count += count(part, limit - count, depth + 1);
+			trail.undo(grid.state, checkpoint);
+			grid.clearDirty();
+		}
+		return count;
+	}
+
+	private long countInParallel(int[][] parts, long limit, int depth) {
+		List<CountTask> tasks = new ArrayList<>(parts.length);
+		for (int[] part : parts)
+			tasks.add(new CountTask(part, limit, depth));
+		ForkJoinTask.invokeAll(tasks);
+		long product = 1;
+		for (CountTask task : tasks) {
+			long count = task.join();
+			if (count == 0)
+				return 0;
+			product = multiply(product, count, limit);
+		}
+		return product;
+	}
+
+	/**
+	 * @return The product of two counts, or <code>limit</code> if it is at least that much
+	 */
+	private static long multiply(long a, long b, long limit) {
+		return a > limit / b ? limit : Math.min(limit, a * b);
+	}
+
+	/**
+	 * Splits the tiles without a value into groups that do not share any rule, smallest first
+	 * so that a group without solutions is found as early as possible
+	 */
+	private int[][] split(int[] cells) {
+		stamp++;
+		List<int[]> parts = new ArrayList<>();
+		for (int start : cells) {
+			if (grid.hasValue(start) || seen[start] == stamp)
+				continue;
+			seen[start] = stamp;
+			queue[0] = start;
+			int size = 1;
+			for (int head = 0; head < size; head++) {
+				int cell = queue[head];
+				size = visit(peers[cell], size);
+				if (cellConstraints != null) {
+					for (int constraint : cellConstraints[cell])
+						size = visit(constraintCells[constraint], size);
+				}
+			}
+			parts.add(Arrays.copyOf(queue, size));
+		}
+		int[][] result = parts.toArray(new int[parts.size()][]);
+		if (result.length > 1)
+			Arrays.sort(result, (a, b) -> Integer.compare(a.length, b.length));
+		return result;
+	}
+
+	/**
+	 * Adds the cells without a value that have not been seen yet to the queue
+	 *
+	 * @return The new size of the queue
+	 */
+	private int visit(int[] cells, int size) {
+		for (int cell : cells) {
+			if (seen[cell] != stamp && !grid.hasValue(cell)) {
+				seen[cell] = stamp;
+				queue[size++] = cell;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Counts the solutions of one part on a copy of the grid
+	 */
+	private class CountTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final int[]	part;
+		private final long	limit;
+		private final int	depth;
+
+		CountTask(int[] part, long limit, int depth) {
+			this.part = part;
+			this.limit = limit;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			SudokuGrid copy = new SudokuGrid(grid);
+			SolveStats total = grid.stats();
+			SolveStats stats = copy.resetStats(total.getEngine());
+			try {
+				SudokuComponents components = new SudokuComponents(copy, pool);
+				return components.search(part, limit, depth);
+			}
+			finally {
+				synchronized (total) {
+					total.add(stats, depth);
+				}
+			}
+		}
+	}
+
+}
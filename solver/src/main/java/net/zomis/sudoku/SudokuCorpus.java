@@ -0,0 +1,428 @@
+package net.zomis.sudoku;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A file of puzzles of one {@link SudokuVariant} in the {@link SudokuBinaryFormat}, memory mapped for random access.
+ * <p>
+ * The file starts with a header of {@value #HEADER_SIZE} bytes: a magic number, the version of the format, flags, the
+ * id of the variant, the size of the largest record, the number of puzzles and the position of the index, all
+ * big-endian. The records follow the header. Without an index every record takes
+ * {@link SudokuBinaryFormat#recordSize(SudokuVariant)} bytes, so the position of puzzle <code>n</code> is computed.
+ * Puzzles with blocked tiles that their variant does not have take more, and need a corpus with an index: the
+ * position of every record as a long, stored after the records.
+ * <p>
+ * The file is mapped in chunks of 1 GB that overlap by the size of the largest record, so files of any size can be
+ * read and every record is read from a single chunk. Puzzles are decoded straight into a new board, without parsing
+ * any text, and may be read from any number of threads at once. Use {@link #shard(int, int)} to give each worker its
+ * own range of puzzles, or {@link #stream()} for a parallel stream.
+ */
+public final class SudokuCorpus {
+
+	static final int			MAGIC			= 0x5355444B;
+	static final int			VERSION			= 1;
+	static final int			HEADER_SIZE		= 32;
+	private static final int	FLAG_INDEXED	= 1;
+	private static final int	CHUNK_SHIFT		= 30;
+	private static final int	BUFFER_SIZE		= 1 << 20;
+
+	private final SudokuVariant	variant;
+	private final int			recordSize;
+	private final long			count;
+	private final long			indexPosition;
+	private final int			chunkShift;
+	private final long			chunkMask;
+	private final ByteBuffer[]	chunks;
+
+	private SudokuCorpus(SudokuVariant variant, int recordSize, long count, long indexPosition, int chunkShift,
+			ByteBuffer[] chunks) {
+		this.variant = variant;
+		this.recordSize = recordSize;
+		this.count = count;
+		this.indexPosition = indexPosition;
+		this.chunkShift = chunkShift;
+		this.chunkMask = (1L << chunkShift) - 1;
+		this.chunks = chunks;
+	}
+
+	/**
+	 * Maps a corpus file. The file is closed once it is mapped, and the mapping is released when the corpus is no
+	 * longer used.
+	 *
+	 * @throws IOException If the file cannot be read or is not a complete corpus
+	 */
+	public static SudokuCorpus open(Path file) throws IOException {
+		return open(file, CHUNK_SHIFT);
+	}
+
+	/**
+	 * Maps a corpus file in chunks of <code>1 &lt;&lt; chunkShift</code> bytes, which tests make small to read
+	 * records across chunk boundaries
+	 */
+	static SudokuCorpus open(Path file, int chunkShift) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+				// Keep reading until the header is complete or the file ends
+			}
+			if (header.hasRemaining() || header.getInt(0) != MAGIC)
+				throw new IOException("Not a complete corpus file: " + file);
+			if (header.getShort(4) != VERSION)
+				throw new IOException("Unsupported corpus version " + header.getShort(4) + " in " + file);
+			boolean indexed = (header.getShort(6) & FLAG_INDEXED) != 0;
+			SudokuVariant variant;
+			try {
+				variant = SudokuVariant.forId(header.getInt(8));
+			}
+			catch (IllegalArgumentException e) {
+				throw new IOException("Unknown variant in " + file, e);
+			}
+			int recordSize = header.getInt(12);
+			long count = header.getLong(16);
+			long indexPosition = header.getLong(24);
+			if (count < 0 || count > size || recordSize < SudokuBinaryFormat.recordSize(variant)
+					|| indexed && (indexPosition < HEADER_SIZE || indexPosition > size))
+				throw new IOException("Corrupt corpus header in " + file);
+			long end = indexed ? indexPosition + count * Long.BYTES : HEADER_SIZE + count * recordSize;
+			if (end > size)
+				throw new IOException("Corpus file is shorter than its header says: " + file);
+
+			int overlap = Math.max(recordSize, Long.BYTES);
+			long chunkSize = 1L << chunkShift;
+			ByteBuffer[] chunks = new ByteBuffer[(int) ((end + chunkSize - 1) >>> chunkShift)];
+			for (int chunk = 0; chunk < chunks.length; chunk++) {
+				long start = (long) chunk << chunkShift;
+				chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(end - start, chunkSize + overlap));
+			}
+			return new SudokuCorpus(variant, recordSize, count, indexed ? indexPosition : 0, chunkShift, chunks);
+		}
+	}
+
+	/**
+	 * Starts writing a new corpus, replacing any existing file
+	 *
+	 * @param indexed True to allow puzzles with blocked tiles that the variant does not have, at the cost of an
+	 * index of 8 bytes per puzzle
+	 */
+	public static Writer create(Path file, SudokuVariant variant, boolean indexed) throws IOException {
+		return new Writer(file, variant, indexed);
+	}
+
+	public SudokuVariant getVariant() {
+		return variant;
+	}
+
+	/**
+	 * @return The number of puzzles
+	 */
+	public long size() {
+		return count;
+	}
+
+	public boolean isIndexed() {
+		return indexPosition != 0;
+	}
+
+	/**
+	 * @return The position of a record in the file
+	 */
+	private long position(long puzzle) {
+		if (puzzle < 0 || puzzle >= count)
+			throw new IndexOutOfBoundsException("Puzzle " + puzzle + " of " + count);
+		if (indexPosition == 0)
+			return HEADER_SIZE + puzzle * recordSize;
+		long entry = indexPosition + puzzle * Long.BYTES;
+		return chunk(entry).getLong(offset(entry));
+	}
+
+	private ByteBuffer chunk(long position) {
+		return chunks[(int) (position >>> chunkShift)];
+	}
+
+	private int offset(long position) {
+		return (int) (position & chunkMask);
+	}
+
+	/**
+	 * Reads a puzzle into a new board of the variant
+	 *
+	 * @param puzzle The number of the puzzle, from 0
+	 */
+	public SudokuBoard get(long puzzle) {
+		long position = position(puzzle);
+		SudokuBoard board = variant.create();
+		SudokuBinaryFormat.read(chunk(position), offset(position), board);
+		return board;
+	}
+
+	/**
+	 * Splits the puzzles into <code>shards</code> consecutive ranges that differ in size by at most one puzzle
+	 *
+	 * @return The range of puzzles for one shard
+	 */
+	public Range shard(int shard, int shards) {
+		if (shards < 1 || shard < 0 || shard >= shards)
+			throw new IllegalArgumentException("Shard " + shard + " of " + shards + " does not exist");
+		long base = count / shards;
+		long extra = count % shards;
+		long start = shard * base + Math.min(shard, extra);
+		return new Range(start, start + base + (shard < extra ? 1 : 0));
+	}
+
+	/**
+	 * @return The puzzles in order, as a stream that splits into ranges of puzzles when made parallel
+	 */
+	public Stream<SudokuBoard> stream() {
+		return LongStream.range(0, count).mapToObj(this::get);
+	}
+
+	/**
+	 * The puzzles from <code>start</code>, inclusive, to <code>end</code>, exclusive
+	 */
+	public final class Range implements Iterable<SudokuBoard> {
+
+		private final long	start;
+		private final long	end;
+
+		private Range(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		public long getStart() {
+			return start;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+		public long size() {
+			return end - start;
+		}
+
+		@Override
+		public Iterator<SudokuBoard> iterator() {
+			return new Iterator<SudokuBoard>() {
+				private long next = start;
+
+				@Override
+				public boolean hasNext() {
+					return next < end;
+				}
+
+				@Override
+				public SudokuBoard next() {
+					if (next >= end)
+						throw new NoSuchElementException();
+					return get(next++);
+				}
+			};
+		}
+
+		@Override
+		public String toString() {
+			return "[" + start + ", " + end + ")";
+		}
+
+	}
+
+	/**
+	 * Appends puzzles to a new corpus file. The header is written by {@link #close()}, so a file that was not closed
+	 * cannot be opened.
+	 */
+	public static final class Writer implements Closeable {
+
+		private final SudokuVariant	variant;
+		private final int			recordSize;
+		private final FileChannel	channel;
+		private final ByteBuffer	buffer		= ByteBuffer.allocate(BUFFER_SIZE);
+		private final Path			indexFile;
+		private final FileChannel	index;
+		private final ByteBuffer	indexBuffer;
+		private long				position	= HEADER_SIZE;
+		private long				count;
+		private int					largest;
+
+		private Writer(Path file, SudokuVariant variant, boolean indexed) throws IOException {
+			this.variant = variant;
+			this.recordSize = SudokuBinaryFormat.recordSize(variant);
+			this.largest = recordSize;
+			this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			if (indexed) {
+				Path directory = file.toAbsolutePath().getParent();
+				indexFile = Files.createTempFile(directory, file.getFileName().toString(), ".index");
+				index = FileChannel.open(indexFile, StandardOpenOption.WRITE, StandardOpenOption.READ,
+						StandardOpenOption.DELETE_ON_CLOSE);
+				indexBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+			}
+			else {
+				indexFile = null;
+				index = null;
+				indexBuffer = null;
+			}
+			channel.position(HEADER_SIZE);
+		}
+
+		/**
+		 * Appends a puzzle
+		 *
+		 * @throws IllegalArgumentException If the board does not have the layout of the variant, has
+		 * {@link Constraint}s besides its rules, or has blocked tiles that the variant does not have in a corpus
+		 * without an index
+		 */
+		public void add(SudokuBoard board) throws IOException {
+			int size = SudokuBinaryFormat.size(variant, board);
+			if (size != recordSize && index == null)
+				throw new IllegalArgumentException("Board has blocked tiles that " + variant
+						+ " does not have, which needs a corpus with an index");
+			if (buffer.remaining() < size)
+				flush(channel, buffer);
+			if (index != null) {
+				if (!indexBuffer.hasRemaining())
+					flush(index, indexBuffer);
+				indexBuffer.putLong(position);
+			}
+			SudokuBinaryFormat.write(variant, board, buffer);
+			position += size;
+			largest = Math.max(largest, size);
+			count++;
+		}
+
+		/**
+		 * @return The number of puzzles written so far
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+
+		/**
+		 * Writes the index and the header, and closes the file
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				flush(channel, buffer);
+				if (index != null) {
+					flush(index, indexBuffer);
+					long length = index.size();
+					for (long transferred = 0; transferred < length;)
+						transferred += index.transferTo(transferred, length - transferred, channel);
+				}
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC);
+				header.putShort((short) VERSION);
+				header.putShort((short) (index != null ? FLAG_INDEXED : 0));
+				header.putInt(variant.getId());
+				header.putInt(largest);
+				header.putLong(count);
+				header.putLong(index != null ? position : 0);
+				header.flip();
+				while (header.hasRemaining())
+					channel.write(header, header.position());
+			}
+			finally {
+				if (index != null)
+					index.close();
+				channel.close();
+			}
+		}
+
+	}
+
+	/**
+	 * Converts a file with one puzzle per line, in the format read by {@link SudokuBatchSolver}, to a corpus.
+	 * Usage: <code>SudokuCorpus [--variant classic] [--indexed] input output</code>
+	 */
+	public static void main(String[] args) throws IOException {
+		SudokuVariant variant = SudokuVariant.CLASSIC;
+		boolean indexed = false;
+		String inputName = null;
+		String outputName = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--variant"))
+				variant = SudokuVariant.forName(args[++i]);
+			else if (args[i].equals("--indexed"))
+				indexed = true;
+			else if (inputName == null)
+				inputName = args[i];
+			else
+				outputName = args[i];
+		}
+		if (outputName == null) {
+			System.err.println("Usage: SudokuCorpus [--variant classic|hyper|samurai|small|classic-16|classic-25] [--indexed] input output");
+			System.exit(1);
+		}
+
+		SudokuBoard template = variant.create();
+		template.checkCharacterFormat();
+		int cellCount = template.getCellCount();
+		long time = System.nanoTime();
+		try (InputStream input = new BufferedInputStream(new FileInputStream(inputName), BUFFER_SIZE);
+				Writer writer = create(Paths.get(outputName), variant, indexed)) {
+			byte[] line = new byte[cellCount + 1];
+			long lineNumber = 0;
+			int length;
+			while ((length = readLine(input, line)) >= 0) {
+				lineNumber++;
+				if (length == 0 || line[0] == '#')
+					continue;
+				if (length != cellCount)
+					throw new IOException("Line " + lineNumber + " is not a puzzle for " + variant + ": "
+							+ new String(line, 0, Math.min(length, line.length), "UTF-8"));
+				SudokuBoard board = new SudokuBoard(template);
+				try {
+					board.readCells(line, 0);
+				}
+				catch (IllegalArgumentException e) {
+					throw new IOException("Line " + lineNumber + " is not a puzzle for " + variant, e);
+				}
+				writer.add(board);
+			}
+			System.err.printf("Wrote %d puzzles in %.3f s%n", writer.getCount(), (System.nanoTime() - time) / 1e9);
+		}
+	}
+
+	/**
+	 * Reads a line without its line break into <code>line</code>, dropping what does not fit
+	 *
+	 * @return The length of the line, or -1 at the end of the input
+	 */
+	private static int readLine(InputStream input, byte[] line) throws IOException {
+		int length = 0;
+		int b;
+		while ((b = input.read()) >= 0 && b != '\n') {
+			if (length < line.length)
+				line[length] = (byte) b;
+			length++;
+		}
+		if (b < 0 && length == 0)
+			return -1;
+		if (length > 0 && length <= line.length && line[length - 1] == '\r')
+			length--;
+		return length;
+	}
+
+}
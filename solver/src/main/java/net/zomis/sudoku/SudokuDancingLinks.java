@@ -0,0 +1,228 @@
+package net.zomis.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Solves a grid as an exact cover problem with Algorithm X, using dancing links stored in int arrays.
+ * <p>
+ * Every unblocked cell has a column that has to be covered exactly once, by one of the rows (cell, value)
+ * for its candidates. Every rule has a column per value. For the values 1 to the size of the rule the
+ * column has to be covered exactly once, the columns for larger values are secondary and may be covered at most once.
+ * This is the same requirement that {@link SudokuGrid#checkForOnlyOnePossibility(int)} places on a rule.
+ */
+final class SudokuDancingLinks {
+
+	private static final int ROOT = 0;
+
+	private final SudokuGrid	grid;
+
+	private int[]	left;
+	private int[]	right;
+	private int[]	up;
+	private int[]	down;
+	private int[]	column;
+	private int[]	row;
+	private int[]	columnSize;
+	private int		nodeCount;
+
+	private int[]	rowCell;
+	private int[]	rowValue;
+	private int		rowCount;
+
+	private int[]	solution;
+	private int		depth;
+
+	SudokuDancingLinks(SudokuGrid grid) {
+		this.grid = grid;
+		compile();
+	}
+
+	private void compile() {
+		SudokuTopology topology = grid.topology;
+		int size = topology.size();
+		int maxValue = topology.getMaxValue();
+		int ruleCount = topology.getRuleCount();
+
+		// Columns: one per cell, then one per rule and value
+		int[] cellColumn = new int[size];
+		int columns = 0;
+		for (int cell = 0; cell < size; cell++)
+			cellColumn[cell] = topology.isBlocked(cell) ? -1 : ++columns;
+		int firstRuleColumn = columns + 1;
+		columns += ruleCount * maxValue;
+
+		int[][] rulesOfCell = topology.freeze().cellRules();
+
+		int capacity = columns + 1;
+		for (int cell = 0; cell < size; cell++) {
+			if (cellColumn[cell] >= 0)
+				capacity += Long.bitCount(grid.candidates(cell)) * (1 + rulesOfCell[cell].length);
+		}
+		left = new int[capacity];
+		right = new int[capacity];
+		up = new int[capacity];
+		down = new int[capacity];
+		column = new int[capacity];
+		row = new int[capacity];
+		columnSize = new int[columns + 1];
+
+		// Link the primary columns into the header list, secondary columns only link to themselves
+		left[ROOT] = ROOT;
+		right[ROOT] = ROOT;
+		for (int col = 1; col <= columns; col++) {
+			up[col] = col;
+			down[col] = col;
+			column[col] = col;
+			boolean primary = true;
+			if (col >= firstRuleColumn) {
+				int rule = (col - firstRuleColumn) / maxValue;
+				int value = (col - firstRuleColumn) % maxValue + 1;
+				primary = value <= topology.rule(rule).length;
+			}
+			if (primary) {
+				left[col] = left[ROOT];
+				right[col] = ROOT;
+				right[left[ROOT]] = col;
+				left[ROOT] = col;
+			}
+			else {
+				left[col] = col;
+				right[col] = col;
+			}
+		}
+		nodeCount = columns + 1;
+
+		rowCell = new int[16];
+		rowValue = new int[16];
+		for (int cell = 0; cell < size; cell++) {
+			if (cellColumn[cell] < 0)
+				continue;
+			long candidates = grid.candidates(cell);
+			while (candidates != 0) {
+				int value = SudokuGrid.singleValue(candidates);
+				candidates &= candidates - 1;
+				int first = addNode(cellColumn[cell], -1);
+				for (int rule : rulesOfCell[cell])
+					addNode(firstRuleColumn + rule * maxValue + value - 1, first);
+				addRow(cell, value);
+			}
+		}
+		solution = new int[size];
+	}
+
+	private int addNode(int col, int first) {
+		int node = nodeCount++;
+		column[node] = col;
+		row[node] = rowCount;
+		up[node] = up[col];
+		down[node] = col;
+		down[up[col]] = node;
+		up[col] = node;
+		columnSize[col]++;
+		if (first < 0) {
+			left[node] = node;
+			right[node] = node;
+		}
+		else {
+			left[node] = left[first];
+			right[node] = first;
+			right[left[first]] = node;
+			left[first] = node;
+		}
+		return node;
+	}
+
+	private void addRow(int cell, int value) {
+		if (rowCount == rowCell.length) {
+			rowCell = Arrays.copyOf(rowCell, rowCount * 2);
+			rowValue = Arrays.copyOf(rowValue, rowCount * 2);
+		}
+		rowCell[rowCount] = cell;
+		rowValue[rowCount] = value;
+		rowCount++;
+	}
+
+	private void cover(int col) {
+		right[left[col]] = right[col];
+		left[right[col]] = left[col];
+		for (int i = down[col]; i != col; i = down[i]) {
+			for (int j = right[i]; j != i; j = right[j]) {
+				down[up[j]] = down[j];
+				up[down[j]] = up[j];
+				columnSize[column[j]]--;
+			}
+		}
+	}
+
+	private void uncover(int col) {
+		for (int i = up[col]; i != col; i = up[i]) {
+			for (int j = left[i]; j != i; j = left[j]) {
+				columnSize[column[j]]++;
+				down[up[j]] = j;
+				up[down[j]] = j;
+			}
+		}
+		right[left[col]] = col;
+		left[right[col]] = col;
+	}
+
+	/**
+	 * Finds the solutions of the grid, writing each into the grid before passing it to <code>visitor</code>.
+	 * The grid is restored to its original state afterwards.
+	 *
+	 * @return False if the search was stopped by the visitor, true if the whole tree was explored
+	 */
+	boolean search(SudokuSolutionVisitor visitor) {
+		grid.ensureIndexed();
+		long[] original = grid.state.clone();
+		try {
+			return searchColumns(visitor);
+		}
+		finally {
+			System.arraycopy(original, 0, grid.state, 0, original.length);
+		}
+	}
+
+	private boolean searchColumns(SudokuSolutionVisitor visitor) {
+		if (visitor.isCancelled())
+			return false;
+		SolveStats stats = grid.stats();
+		stats.nodes++;
+		stats.enter(depth);
+		if (right[ROOT] == ROOT) {
+			for (int i = 0; i < depth; i++)
+				grid.fix(rowCell[solution[i]], rowValue[solution[i]]);
+			stats.solutions++;
+			return visitor.solution(grid);
+		}
+
+		// Choose the column with the fewest rows left
+		int chosen = right[ROOT];
+		for (int col = right[chosen]; col != ROOT; col = right[col]) {
+			if (columnSize[col] < columnSize[chosen])
+				chosen = col;
+		}
+		if (columnSize[chosen] == 0) {
+			stats.backtracks++;
+			return true;
+		}
+
+		boolean proceed = true;
+		boolean guess = columnSize[chosen] > 1;
+		cover(chosen);
+		for (int i = down[chosen]; proceed && i != chosen; i = down[i]) {
+			solution[depth++] = row[i];
+			if (guess)
+				stats.guesses++;
+			for (int j = right[i]; j != i; j = right[j])
+				cover(column[j]);
+			proceed = searchColumns(visitor);
+			for (int j = left[i]; j != i; j = left[j])
+				uncover(column[j]);
+			depth--;
+		}
+		uncover(chosen);
+		return proceed;
+	}
+
+}
@@ -0,0 +1,329 @@
+package net.zomis.sudoku;
+
+/**
+ * Applies the {@link SudokuTechnique}s to a grid by removing candidates through {@link SudokuGrid#eliminate(int, long)}.
+ * <p>
+ * A rule with <code>n</code> tiles has to contain each of the values 1 to <code>n</code>, so only those values are used
+ * for the techniques that depend on a value having to be placed somewhere in a rule.
+ */
+final class SudokuDeductions {
+
+	private static final SudokuTechnique[] TECHNIQUES = SudokuTechnique.values();
+
+	private final SudokuGrid	grid;
+	private final SudokuTopology	topology;
+	private final int[][]		cellRules;
+	private final int[]			ruleOverlaps;
+	private final int			ruleCount;
+
+	/** Cells marked with the current stamp are part of the structure being examined */
+	private final int[]			marks;
+	private int					stamp;
+	private final int[]			buffer;
+	private final long[]		missing;
+
+	SudokuDeductions(SudokuGrid grid) {
+		this.grid = grid;
+		this.topology = grid.topology;
+		this.cellRules = topology.cellRules();
+		this.ruleOverlaps = topology.ruleOverlaps();
+		this.ruleCount = topology.getRuleCount();
+		this.marks = new int[topology.size()];
+		this.buffer = new int[topology.size()];
+		this.missing = new long[ruleCount];
+	}
+
+	/**
+	 * Applies the enabled techniques in order until one of them removes a candidate
+	 *
+	 * @param techniques The enabled techniques, as a mask of {@link SudokuTechnique#mask()}
+	 */
+	SudokuProgress apply(int techniques) {
+		for (SudokuTechnique technique : TECHNIQUES) {
+			if ((techniques & technique.mask()) == 0)
+				continue;
+			long eliminated = apply(technique);
+			if (eliminated > 0) {
+				grid.stats().eliminations[technique.ordinal()] += eliminated;
+				return SudokuProgress.PROGRESS;
+			}
+		}
+		return SudokuProgress.NO_PROGRESS;
+	}
+
+	private long apply(SudokuTechnique technique) {
+		switch (technique) {
+			case LOCKED_CANDIDATES: return lockedCandidates();
+			case NAKED_PAIRS: return nakedSubsets(2);
+			case HIDDEN_PAIRS: return hiddenSubsets(2);
+			case NAKED_TRIPLES: return nakedSubsets(3);
+			case HIDDEN_TRIPLES: return hiddenSubsets(3);
+			case X_WING: return xWing();
+			default: throw new UnsupportedOperationException("Unknown technique: " + technique);
+		}
+	}
+
+	/**
+	 * @return The values that the rule has to contain but does not have yet
+	 */
+	private long missingValues(int rule) {
+		int[] cells = topology.rule(rule);
+		return SudokuGrid.allValuesMask(Math.min(cells.length, topology.getMaxValue())) & ~grid.existingValues(rule);
+	}
+
+	private boolean inRule(int cell, int rule) {
+		for (int cellRule : cellRules[cell]) {
+			if (cellRule == rule)
+				return true;
+		}
+		return false;
+	}
+
+	private long eliminate(int cell, long mask) {
+		if (grid.hasValue(cell))
+			return 0;
+		return Long.bitCount(grid.eliminate(cell, mask));
+	}
+
+	private long lockedCandidates() {
+		long eliminated = 0;
+		for (int rule = 0; rule < ruleCount; rule++) {
+			int[] cells = topology.rule(rule);
+			long missing = missingValues(rule);
+			while (missing != 0) {
+				long mask = Long.lowestOneBit(missing);
+				missing &= missing - 1;
+
+				// Find the other rules that contain all the possible tiles for this value
+				int first = -1;
+				int count = 0;
+				for (int cell : cells) {
+					if (!grid.hasValue(cell) && (grid.candidates(cell) & mask) != 0) {
+						if (first < 0)
+							first = cell;
+						count++;
+					}
+				}
+				if (count < 2)
+					continue;
+				for (int other : cellRules[first]) {
+					if (other == rule || ruleOverlaps[rule * ruleCount + other] < 2)
+						continue;
+					boolean locked = true;
+					for (int cell : cells) {
+						if (!grid.hasValue(cell) && (grid.candidates(cell) & mask) != 0 && !inRule(cell, other)) {
+							locked = false;
+							break;
+						}
+					}
+					if (!locked)
+						continue;
+					for (int cell : topology.rule(other)) {
+						if (!inRule(cell, rule))
+							eliminated += eliminate(cell, mask);
+					}
+				}
+			}
+		}
+		return eliminated;
+	}
+
+	private long nakedSubsets(int subsetSize) {
+		long eliminated = 0;
+		for (int rule = 0; rule < ruleCount; rule++) {
+			int[] cells = topology.rule(rule);
+			int count = 0;
+			for (int cell : cells) {
+				int possible = Long.bitCount(grid.candidates(cell));
+				if (!grid.hasValue(cell) && possible >= 2 && possible <= subsetSize)
+					buffer[count++] = cell;
+			}
+			eliminated += nakedSubsets(rule, subsetSize, 0, count, 0, 0L, new int[subsetSize]);
+		}
+		return eliminated;
+	}
+
+	private long nakedSubsets(int rule, int subsetSize, int from, int count, int chosen, long union, int[] subset) {
+		if (Long.bitCount(union) > subsetSize)
+			return 0;
+		if (chosen == subsetSize) {
+			if (Long.bitCount(union) != subsetSize)
+				return 0;
+			long eliminated = 0;
+			for (int cell : topology.rule(rule)) {
+				if (!contains(subset, cell))
+					eliminated += eliminate(cell, union);
+			}
+			return eliminated;
+		}
+		long eliminated = 0;
+		for (int i = from; i < count; i++) {
+			subset[chosen] = buffer[i];
+			eliminated += nakedSubsets(rule, subsetSize, i + 1, count, chosen + 1, union | grid.candidates(buffer[i]), subset);
+		}
+		return eliminated;
+	}
+
+	private static boolean contains(int[] array, int value) {
+		for (int element : array) {
+			if (element == value)
+				return true;
+		}
+		return false;
+	}
+
+	private long hiddenSubsets(int subsetSize) {
+		long eliminated = 0;
+		int[] values = new int[Long.SIZE];
+		long[] positions = new long[Long.SIZE];
+		for (int rule = 0; rule < ruleCount; rule++) {
+			int[] cells = topology.rule(rule);
+			if (cells.length > Long.SIZE)
+				continue;
+
+			// Positions within the rule where each missing value is possible
+			int count = 0;
+			long missing = missingValues(rule);
+			while (missing != 0) {
+				int value = SudokuGrid.singleValue(missing);
+				long mask = Long.lowestOneBit(missing);
+				missing &= missing - 1;
+				long position = 0;
+				for (int i = 0; i < cells.length; i++) {
+					if (!grid.hasValue(cells[i]) && (grid.candidates(cells[i]) & mask) != 0)
+						position |= 1L << i;
+				}
+				int possible = Long.bitCount(position);
+				if (possible >= 2 && possible <= subsetSize) {
+					values[count] = value;
+					positions[count] = position;
+					count++;
+				}
+			}
+			eliminated += hiddenSubsets(cells, subsetSize, values, positions, 0, count, 0, 0L, 0L);
+		}
+		return eliminated;
+	}
+
+	private long hiddenSubsets(int[] cells, int subsetSize, int[] values, long[] positions,
+			int from, int count, int chosen, long union, long valueMask) {
+		if (Long.bitCount(union) > subsetSize)
+			return 0;
+		if (chosen == subsetSize) {
+			if (Long.bitCount(union) != subsetSize)
+				return 0;
+			long eliminated = 0;
+			for (int i = 0; i < cells.length; i++) {
+				if ((union & (1L << i)) != 0)
+					eliminated += eliminate(cells[i], ~valueMask);
+			}
+			return eliminated;
+		}
+		long eliminated = 0;
+		for (int i = from; i < count; i++) {
+			eliminated += hiddenSubsets(cells, subsetSize, values, positions, i + 1, count, chosen + 1,
+					union | positions[i], valueMask | SudokuGrid.valueMask(values[i]));
+		}
+		return eliminated;
+	}
+
+	private long xWing() {
+		for (int rule = 0; rule < ruleCount; rule++)
+			missing[rule] = missingValues(rule);
+		long eliminated = 0;
+		for (int value = 1; value <= topology.getMaxValue(); value++) {
+			long mask = SudokuGrid.valueMask(value);
+			for (int base1 = 0; base1 < ruleCount; base1++) {
+				if ((missing[base1] & mask) == 0)
+					continue;
+				for (int base2 = base1 + 1; base2 < ruleCount; base2++) {
+					if ((missing[base2] & mask) == 0 || ruleOverlaps[base1 * ruleCount + base2] != 0)
+						continue;
+					eliminated += xWing(base1, base2, mask);
+				}
+			}
+		}
+		return eliminated;
+	}
+
+	/**
+	 * Both base rules have to contain the value exactly once. If all tiles where that is possible are within two
+	 * disjoint cover rules, each cover rule contains one of them and no other tile of the cover rules can have the value.
+	 * <p>
+	 * Each base rule has to cross each cover rule in a single tile, so that the possible tiles are the four corners.
+	 * Rules that share more tiles, such as a row within a box or two rows and two boxes of the same band, only repeat
+	 * what {@link SudokuTechnique#LOCKED_CANDIDATES} finds.
+	 */
+	private long xWing(int base1, int base2, long mask) {
+		int count = collectPossible(base1, mask, 0);
+		if (count < 2)
+			return 0;
+		int count1 = count;
+		count = collectPossible(base2, mask, count);
+		if (count - count1 < 2)
+			return 0;
+
+		int first = buffer[0];
+		for (int cover1 : cellRules[first]) {
+			if (cover1 == base1 || cover1 == base2 || !crosses(base1, base2, cover1))
+				continue;
+			int outside = -1;
+			for (int i = 0; i < count; i++) {
+				if (!inRule(buffer[i], cover1)) {
+					outside = buffer[i];
+					break;
+				}
+			}
+			if (outside < 0)
+				continue;
+			for (int cover2 : cellRules[outside]) {
+				if (cover2 == base1 || cover2 == base2 || ruleOverlaps[cover1 * ruleCount + cover2] != 0
+						|| !crosses(base1, base2, cover2))
+					continue;
+				boolean covered = true;
+				for (int i = 0; i < count && covered; i++)
+					covered = inRule(buffer[i], cover1) || inRule(buffer[i], cover2);
+				if (!covered)
+					continue;
+
+				stamp++;
+				for (int cell : topology.rule(base1))
+					marks[cell] = stamp;
+				for (int cell : topology.rule(base2))
+					marks[cell] = stamp;
+				long eliminated = 0;
+				for (int cell : topology.rule(cover1)) {
+					if (marks[cell] != stamp)
+						eliminated += eliminate(cell, mask);
+				}
+				for (int cell : topology.rule(cover2)) {
+					if (marks[cell] != stamp)
+						eliminated += eliminate(cell, mask);
+				}
+				return eliminated;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return True if the cover rule shares exactly one tile with each of the base rules
+	 */
+	private boolean crosses(int base1, int base2, int cover) {
+		return ruleOverlaps[base1 * ruleCount + cover] == 1 && ruleOverlaps[base2 * ruleCount + cover] == 1;
+	}
+
+	/**
+	 * Adds the unsolved tiles of a rule where the value is possible to the buffer
+	 *
+	 * @return The new number of tiles in the buffer
+	 */
+	private int collectPossible(int rule, long mask, int count) {
+		for (int cell : topology.rule(rule)) {
+			if (!grid.hasValue(cell) && (grid.candidates(cell) & mask) != 0)
+				buffer[count++] = cell;
+		}
+		return count;
+	}
+
+}
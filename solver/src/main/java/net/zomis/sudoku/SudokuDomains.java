@@ -0,0 +1,30 @@
+package net.zomis.sudoku;
+
+/**
+ * The values and candidates of the tiles of a board, as seen by a {@link Constraint}.
+ * Tiles are identified by their index <code>y * width + x</code> and candidates are masks with bit (value - 1) set
+ * for every value that is still possible.
+ */
+public interface SudokuDomains {
+
+	int getMaxValue();
+
+	/**
+	 * @return The value of a tile, or {@link SudokuTile#CLEARED} if it has none
+	 */
+	int value(int cell);
+
+	/**
+	 * @return The candidates of a tile, which for a tile with a value are only that value
+	 */
+	long candidates(int cell);
+
+	/**
+	 * Removes candidates from a tile. A tile left with a single candidate gets it as its value once its rules are
+	 * propagated, and a tile left without candidates makes the propagation fail.
+	 *
+	 * @return The candidates that were removed
+	 */
+	long eliminate(int cell, long mask);
+
+}
@@ -0,0 +1,53 @@
+package net.zomis.sudoku;
+
+/**
+ * The algorithms that can be used to find the solutions of a board
+ */
+public enum SudokuEngine {
+
+	/**
+	 * Simplifies the board using the rules and guesses values for the tile with the fewest possibilities
+	 */
+	BACKTRACKING {
+		@Override
+		boolean search(SudokuGrid grid, SudokuSolutionVisitor visitor) {
+			return grid.search(visitor);
+		}
+	},
+
+	/**
+	 * Compiles the rules of the board into an exact cover problem and solves it with Algorithm X and dancing links.
+	 * Boards with other constraints than the rules are solved by {@link #BACKTRACKING}.
+	 */
+	DANCING_LINKS {
+		@Override
+		boolean search(SudokuGrid grid, SudokuSolutionVisitor visitor) {
+			if (grid.topology.getConstraintCount() > 0)
+				return grid.search(visitor);
+			return new SudokuDancingLinks(grid).search(visitor);
+		}
+	},
+
+	/**
+	 * Encodes the tiles and rules of the board as clauses and solves them with a conflict-driven clause learning
+	 * SAT solver, which learns from every contradiction instead of only backtracking. Suited for large or unusual
+	 * boards on which the other engines have to guess a lot. Boards with other constraints than the rules are solved
+	 * by {@link #BACKTRACKING}.
+	 */
+	SAT {
+		@Override
+		boolean search(SudokuGrid grid, SudokuSolutionVisitor visitor) {
+			if (grid.topology.getConstraintCount() > 0)
+				return grid.search(visitor);
+			return new SudokuSat(grid).search(visitor);
+		}
+	};
+
+	/**
+	 * Searches for solutions of a grid whose candidates have been reset
+	 *
+	 * @return False if the search was stopped by the visitor, true if the whole tree was explored
+	 */
+	abstract boolean search(SudokuGrid grid, SudokuSolutionVisitor visitor);
+
+}
@@ -1,4 +1,4 @@
-﻿package net.zomis.sudoku;
+package net.zomis.sudoku;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -22,7 +22,14 @@ public class SudokuFactory
 		return points;
 	}
 
+	/**
+	 * @return An empty samurai board, five overlapping classic boards, sharing the topology of {@link SudokuVariant#SAMURAI}
+	 */
 	public static SudokuBoard samurai() {
+		return SudokuVariant.SAMURAI.create();
+	}
+
+	static SudokuBoard buildSamurai() {
 		SudokuBoard board = new SudokuBoard(SAMURAI_AREAS*BOX_SIZE, SAMURAI_AREAS*BOX_SIZE, DEFAULT_SIZE);
 		// Removed the empty areas where there are no tiles
 		Collection<Collection<SudokuTile>> queriesForBlocked = new ArrayList<Collection<SudokuTile>>();
@@ -68,11 +75,40 @@ public class SudokuFactory
 		return board;
 	}
 
+	/**
+	 * @return An empty 9x9 board with 3x3 boxes, sharing the topology of {@link SudokuVariant#CLASSIC}
+	 */
 	public static SudokuBoard classicWith3x3Boxes() {
+		return SudokuVariant.CLASSIC.create();
+	}
+
+	static SudokuBoard buildClassic() {
 		return sizeAndBoxes(DEFAULT_SIZE, DEFAULT_SIZE, DEFAULT_SIZE / BOX_SIZE, DEFAULT_SIZE / BOX_SIZE);
 	}
 
+	/**
+	 * @return An empty 16x16 board with 4x4 boxes, for values 1 to 16
+	 */
+	public static SudokuBoard classicWith4x4Boxes() {
+		return SudokuVariant.CLASSIC_16.create();
+	}
+
+	/**
+	 * @return An empty 25x25 board with 5x5 boxes, for values 1 to 25
+	 */
+	public static SudokuBoard classicWith5x5Boxes() {
+		return SudokuVariant.CLASSIC_25.create();
+	}
+
+	/**
+	 * @return An empty classic board with four extra 3x3 regions, sharing the topology of {@link SudokuVariant#HYPER}
+	 */
 	public static SudokuBoard classicWith3x3BoxesAndHyperRegions() {
+		return SudokuVariant.HYPER.create();
+	}
+
+	static SudokuBoard buildHyper() {
+		// Starts from the cached classic topology, which the new rules copy
 		SudokuBoard board = classicWith3x3Boxes();
 		final int hyperSecond = HYPER_MARGIN + BOX_SIZE + HYPER_MARGIN;
 		// Create the four extra hyper regions
@@ -0,0 +1,205 @@
+package net.zomis.sudoku;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates puzzles with a unique solution for any topology.
+ * <p>
+ * Each puzzle starts as a random complete grid, found by a search that tries the candidates in random order.
+ * Clues are then removed in random order, one group of symmetric tiles at a time, and put back if the solution
+ * is no longer unique. The uniqueness check stops as soon as a second solution is found, and only searches
+ * among the grids that differ from the first solution in the removed tiles. Without a symmetry the
+ * puzzles are minimal: removing any clue would allow more than one solution.
+ * <p>
+ * Every puzzle only depends on the seed and its position in the batch, so batches are generated in parallel
+ * and still give the same puzzles for the same seed.
+ */
+public class SudokuGenerator {
+
+	private final SudokuBoard		template;
+	private final SudokuSymmetry	symmetry;
+	private final ForkJoinPool		pool;
+	private final int[][]			orbits;
+
+	public SudokuGenerator(SudokuBoard template, SudokuSymmetry symmetry) {
+		this(template, symmetry, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param template A board with the topology to generate puzzles for. Values already set on it are kept in every puzzle.
+	 * @param symmetry The symmetry that the clues of every puzzle have
+	 * @param pool The pool to generate batches on
+	 */
+	public SudokuGenerator(SudokuBoard template, SudokuSymmetry symmetry, ForkJoinPool pool) {
+		if (!symmetry.supports(template.getWidth(), template.getHeight()))
+			throw new IllegalArgumentException(symmetry + " symmetry requires a square board. Was "
+					+ template.getWidth() + "x" + template.getHeight());
+		this.template = new SudokuBoard(template);
+		this.symmetry = symmetry;
+		this.pool = pool;
+		this.orbits = orbits(this.template.grid());
+	}
+
+	/**
+	 * Groups the tiles that can get a clue into sets that are mapped onto each other by the symmetry
+	 */
+	private int[][] orbits(SudokuGrid grid) {
+		SudokuTopology topology = grid.topology.freeze();
+		int[][] cellRules = topology.cellRules();
+		boolean[] assigned = new boolean[topology.size()];
+		List<int[]> result = new ArrayList<>();
+		for (int cell = 0; cell < topology.size(); cell++) {
+			if (assigned[cell] || cellRules[cell].length == 0 || grid.hasValue(cell))
+				continue;
+			int[] images = symmetry.images(topology.x(cell), topology.y(cell), topology.getWidth(), topology.getHeight());
+			int[] orbit = new int[images.length / 2];
+			int count = 0;
+			for (int i = 0; i < images.length; i += 2) {
+				int image = topology.index(images[i], images[i + 1]);
+				if (!assigned[image] && cellRules[image].length > 0 && !grid.hasValue(image)) {
+					assigned[image] = true;
+					orbit[count++] = image;
+				}
+			}
+			result.add(Arrays.copyOf(orbit, count));
+		}
+		return result.toArray(new int[result.size()][]);
+	}
+
+	/**
+	 * @return The puzzle for a seed
+	 * @throws IllegalArgumentException If the template has no solution
+	 */
+	public SudokuBoard generate(long seed) {
+		Random random = new Random(seed);
+		SudokuGrid puzzle = solution(random);
+
+		int[] order = new int[orbits.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		for (int i = order.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+
+		int[] values = new int[symmetry == SudokuSymmetry.QUARTER_TURN ? 4 : 2];
+		for (int index : order) {
+			int[] orbit = orbits[index];
+			for (int i = 0; i < orbit.length; i++) {
+				values[i] = puzzle.value(orbit[i]);
+				puzzle.setValue(orbit[i], SudokuTile.CLEARED);
+			}
+			if (!isUnique(puzzle, orbit, values)) {
+				for (int i = 0; i < orbit.length; i++)
+					puzzle.setValue(orbit[i], values[i]);
+			}
+		}
+		puzzle.resetCandidates();
+		return new SudokuBoard(puzzle);
+	}
+
+	/**
+	 * Generates <code>count</code> puzzles in parallel, the i:th of them from a seed derived from <code>seed</code> and i
+	 */
+	public List<SudokuBoard> generate(long seed, int count) {
+		return pool.submit(() -> IntStream.range(0, count).parallel()
+				.mapToObj(i -> generate(seed(seed, i)))
+				.collect(Collectors.toList())).join();
+	}
+
+	/**
+	 * Mixes the index into the seed, so that nearby seeds do not give overlapping batches
+	 */
+	private static long seed(long seed, int index) {
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private SudokuGrid solution(Random random) {
+		SudokuGrid grid = new SudokuGrid(template.grid());
+		grid.resetCandidates();
+		SudokuSearch search = new SudokuSearch(grid, random);
+		try {
+			if (!search.next())
+				throw new IllegalArgumentException("The template has no solution");
+			return new SudokuGrid(grid);
+		}
+		finally {
+			search.close();
+		}
+	}
+
+	/**
+	 * Checks that a puzzle which had a unique solution before some clues were removed still has.
+	 * Any second solution has to differ from the first in one of the removed tiles, so it is enough to search
+	 * for a solution with each removed value forbidden in turn, stopping at the first solution found.
+	 */
+	private static boolean isUnique(SudokuGrid puzzle, int[] removed, int[] values) {
+		for (int i = 0; i < removed.length; i++) {
+			SudokuGrid copy = new SudokuGrid(puzzle);
+			copy.resetCandidates();
+			copy.eliminate(removed[i], SudokuGrid.valueMask(values[i]));
+			if (copy.countSolutions(1) > 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Usage: <code>SudokuGenerator [--variant classic] [--symmetry none] [--seed n] [--count n]</code>
+	 * <p>
+	 * Writes one puzzle per line in the format read by {@link SudokuBatchSolver}.
+	 */
+	public static void main(String[] args) throws IOException {
+		SudokuVariant variant = SudokuVariant.CLASSIC;
+		SudokuSymmetry symmetry = SudokuSymmetry.NONE;
+		long seed = System.nanoTime();
+		int count = 1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--variant"))
+				variant = SudokuVariant.forName(args[++i]);
+			else if (args[i].equals("--symmetry"))
+				symmetry = SudokuSymmetry.forName(args[++i]);
+			else if (args[i].equals("--seed"))
+				seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("--count"))
+				count = Integer.parseInt(args[++i]);
+			else {
+				System.err.println("Usage: SudokuGenerator [--variant classic|hyper|samurai|small|classic-16|classic-25] "
+						+ "[--symmetry none|rotational|quarter-turn|horizontal|vertical|diagonal] [--seed n] [--count n]");
+				System.exit(1);
+			}
+		}
+
+		SudokuBoard template = variant.create();
+		template.checkCharacterFormat();
+		SudokuGenerator generator = new SudokuGenerator(template, symmetry);
+		long time = System.nanoTime();
+		List<SudokuBoard> puzzles = generator.generate(seed, count);
+		time = System.nanoTime() - time;
+
+		OutputStream output = new BufferedOutputStream(System.out, 1 << 16);
+		for (SudokuBoard puzzle : puzzles) {
+			byte[] line = new byte[puzzle.getCellCount() + 1];
+			puzzle.writeCells(line, 0);
+			line[line.length - 1] = '\n';
+			output.write(line);
+		}
+		output.flush();
+		double seconds = time / 1000000000.0;
+		System.err.printf("Generated %d puzzles in %.3f s, %.0f puzzles/second%n", count, seconds, count / seconds);
+	}
+
+}
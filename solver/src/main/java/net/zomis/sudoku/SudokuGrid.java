@@ -0,0 +1,683 @@
+package net.zomis.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * The mutable state of a board, stored in a single primitive array so that copying a board is one array copy.
+ * <p>
+ * For a topology with <code>n</code> cells, <code>state[cell]</code> is the candidate mask of the cell, where
+ * bit (value - 1) is set for every value that is still possible, and <code>state[n + cell]</code> is its value.
+ * After that come one bitmap of cells for each candidate count from 2 up, so that a tile with the fewest
+ * candidates is found without looking at every tile. The bitmaps are updated with every change of candidates.
+ * <p>
+ * Once the topology is frozen and indexed, every rule also has a count of its cells with a value followed by a byte
+ * for each value counting how often it occurs in the rule, and two totals follow at the very end: the number of values
+ * that occur more than once in a rule, and the number of cells in rules without a value. These are updated whenever a
+ * value is set or cleared, so a contradiction is noticed as soon as it is made and checking if the grid is valid or
+ * complete takes constant time. Until then the state ends after the bitmaps and the counts are built when indexing.
+ * <p>
+ * While a {@link SudokuTrail} is attached every change is recorded on it, which lets the search
+ * explore a branch in place and roll it back afterwards.
+ * <p>
+ * Every change to a cell marks the rules and other {@link Constraint}s containing it as dirty, and {@link #propagate()}
+ * only re-examines the dirty ones. Fixing a value during propagation also removes it directly from the cell's peers.
+ * Once the rules make no more progress, the enabled {@link SudokuTechnique}s are tried one at a time.
+ */
+final class SudokuGrid implements SudokuDomains {
+
+	final SudokuTopology	topology;
+	long[]				state;
+	private final int	size;
+	private final int	bucketWords;
+	private final int	bucketBase;
+	private final int	countBase;
+	private final int	ruleWords;
+	private int			duplicatesSlot;
+	private int			missingSlot;
+	private SudokuTrail	trail;
+
+	private int[][]		cellRules;
+	private int[][]		cellConstraints;
+	private int			ruleCount;
+	private int[][]		peers;
+	private int[]		dirtyQueue;
+	private boolean[]	dirty;
+	private int			dirtyHead;
+	private int			dirtyCount;
+	private boolean		allDirty	= true;
+	private boolean		conflict;
+
+	private int					techniques;
+	private BranchingStrategy	branching		= BranchingStrategy.MINIMUM_REMAINING_VALUES;
+	private SudokuDeductions	deductions;
+	private SolveStats			stats			= new SolveStats(SudokuEngine.BACKTRACKING);
+
+	SudokuGrid(SudokuTopology topology) {
+		this(topology, new long[stateSize(topology)]);
+		if (cellRules != null)
+			state[missingSlot] = topology.coveredCells();
+	}
+
+	SudokuGrid(SudokuGrid copy) {
+		this(copy.topology, copy.state.clone());
+		this.techniques = copy.techniques;
+		this.branching = copy.branching;
+	}
+
+	/**
+	 * Creates a grid with the cells of <code>state</code>. The state of a grid of another topology with the same cells
+	 * may be used, in which case its counts are dropped and built again when this grid is indexed.
+	 */
+	SudokuGrid(SudokuTopology topology, long[] state) {
+		this.topology = topology;
+		this.size = topology.size();
+		this.bucketWords = bucketWords(topology);
+		this.bucketBase = size * 2 - 2 * bucketWords;
+		this.countBase = cellsSize(topology);
+		this.ruleWords = ruleWords(topology);
+		if (topology.isFrozen() && state.length == stateSize(topology)) {
+			this.state = state;
+			index();
+		}
+		else {
+			this.state = state.length == countBase ? state : Arrays.copyOf(state, countBase);
+		}
+	}
+
+	private static int bucketWords(SudokuTopology topology) {
+		return (topology.size() + Long.SIZE - 1) / Long.SIZE;
+	}
+
+	/**
+	 * @return The number of state slots for each rule: the cells with a value, then 8 counts of values per slot
+	 */
+	private static int ruleWords(SudokuTopology topology) {
+		return 1 + (topology.getMaxValue() + Byte.SIZE - 1) / Byte.SIZE;
+	}
+
+	private static int cellsSize(SudokuTopology topology) {
+		return topology.size() * 2 + (topology.getMaxValue() - 1) * bucketWords(topology);
+	}
+
+	/**
+	 * @return The size of the state, including the counts if the topology is frozen
+	 */
+	private static int stateSize(SudokuTopology topology) {
+		if (!topology.isFrozen())
+			return cellsSize(topology);
+		return cellsSize(topology) + topology.getRuleCount() * ruleWords(topology) + 2;
+	}
+
+	static long valueMask(int value) {
+		return 1L << (value - 1);
+	}
+
+	static long allValuesMask(int maxValue) {
+		return maxValue >= SudokuTile.MAX_SUPPORTED_VALUE ? -1L : (1L << maxValue) - 1;
+	}
+
+	static int singleValue(long mask) {
+		return Long.numberOfTrailingZeros(mask) + 1;
+	}
+
+	@Override
+	public int getMaxValue() {
+		return topology.getMaxValue();
+	}
+
+	@Override
+	public int value(int cell) {
+		return (int) state[size + cell];
+	}
+
+	boolean hasValue(int cell) {
+		return state[size + cell] != SudokuTile.CLEARED;
+	}
+
+	@Override
+	public long candidates(int cell) {
+		return state[cell];
+	}
+
+	private void write(int slot, long value) {
+		long previous = state[slot];
+		if (previous == value)
+			return;
+		store(slot, previous, value);
+		if (slot < size)
+			reindex(slot, previous, value);
+		else if (cellRules != null)
+			count(slot - size, (int) previous, (int) value);
+		if (dirty != null && !allDirty) {
+			int cell = slot < size ? slot : slot - size;
+			for (int rule : cellRules[cell])
+				markDirty(rule);
+			if (cellConstraints != null) {
+				for (int constraint : cellConstraints[cell])
+					markDirty(ruleCount + constraint);
+			}
+		}
+	}
+
+	private void store(int slot, long previous, long value) {
+		if (trail != null)
+			trail.record(slot, previous);
+		state[slot] = value;
+	}
+
+	/**
+	 * Moves a cell to the bitmap for its new number of candidates
+	 */
+	private void reindex(int cell, long previous, long candidates) {
+		int before = Long.bitCount(previous);
+		int after = Long.bitCount(candidates);
+		if (before == after || topology.isBlocked(cell))
+			return;
+		int word = cell >>> 6;
+		long bit = 1L << cell;
+		if (before >= 2) {
+			int slot = bucketBase + before * bucketWords + word;
+			store(slot, state[slot], state[slot] & ~bit);
+		}
+		if (after >= 2) {
+			int slot = bucketBase + after * bucketWords + word;
+			store(slot, state[slot], state[slot] | bit);
+		}
+	}
+
+	/**
+	 * Updates the counts of the rules of a cell for its new value
+	 */
+	private void count(int cell, int previous, int value) {
+		int[] rules = cellRules[cell];
+		if (rules.length == 0)
+			return;
+		if (previous == SudokuTile.CLEARED)
+			add(missingSlot, -1);
+		else if (value == SudokuTile.CLEARED)
+			add(missingSlot, 1);
+		for (int rule : rules) {
+			int base = countBase + rule * ruleWords;
+			if (previous != SudokuTile.CLEARED) {
+				if (value == SudokuTile.CLEARED)
+					add(base, -1);
+				if (addOccurrence(base, previous, -1) == 1)
+					add(duplicatesSlot, -1);
+			}
+			if (value != SudokuTile.CLEARED) {
+				if (previous == SudokuTile.CLEARED)
+					add(base, 1);
+				if (addOccurrence(base, value, 1) == 2) {
+					add(duplicatesSlot, 1);
+					conflict = true;
+				}
+			}
+		}
+	}
+
+	private void add(int slot, long delta) {
+		store(slot, state[slot], state[slot] + delta);
+	}
+
+	/**
+	 * @return The new number of occurrences of the value in the rule starting at <code>base</code>
+	 */
+	private int addOccurrence(int base, int value, int delta) {
+		int slot = base + 1 + ((value - 1) >>> 3);
+		int shift = ((value - 1) & 7) * Byte.SIZE;
+		long counts = state[slot] + ((long) delta << shift);
+		store(slot, state[slot], counts);
+		return (int) (counts >>> shift) & 0xFF;
+	}
+
+	/**
+	 * Removes all candidates of a cell, for a cell that is about to be blocked
+	 */
+	void clearCandidates(int cell) {
+		write(cell, 0L);
+	}
+
+	/**
+	 * Loads the cell index of the topology, which freezes it, and counts the values in each rule
+	 */
+	void ensureIndexed() {
+		if (cellRules == null) {
+			topology.freeze();
+			state = Arrays.copyOf(state, stateSize(topology));
+			index();
+			// The counts are new, so there is nothing to record on the trail
+			SudokuTrail attached = trail;
+			trail = null;
+			for (int cell = 0; cell < size; cell++) {
+				if (cellRules[cell].length == 0)
+					continue;
+				state[missingSlot]++;
+				if (hasValue(cell))
+					count(cell, SudokuTile.CLEARED, value(cell));
+			}
+			trail = attached;
+		}
+		if (dirty == null) {
+			dirtyQueue = new int[ruleCount + topology.getConstraintCount()];
+			dirty = new boolean[dirtyQueue.length];
+		}
+	}
+
+	private void index() {
+		cellRules = topology.cellRules();
+		cellConstraints = topology.cellConstraints();
+		ruleCount = topology.getRuleCount();
+		peers = topology.peers();
+		duplicatesSlot = countBase + topology.getRuleCount() * ruleWords;
+		missingSlot = duplicatesSlot + 1;
+	}
+
+	private void markDirty(int rule) {
+		if (dirty[rule])
+			return;
+		dirty[rule] = true;
+		int tail = dirtyHead + dirtyCount;
+		dirtyQueue[tail < dirtyQueue.length ? tail : tail - dirtyQueue.length] = rule;
+		dirtyCount++;
+	}
+
+	private int pollDirty() {
+		int rule = dirtyQueue[dirtyHead];
+		dirty[rule] = false;
+		dirtyHead = dirtyHead + 1 == dirtyQueue.length ? 0 : dirtyHead + 1;
+		dirtyCount--;
+		return rule;
+	}
+
+	/**
+	 * Forgets all pending work, for when the state has been changed in a way that is not followed by propagation
+	 */
+	void clearDirty() {
+		while (dirtyCount > 0)
+			pollDirty();
+		dirtyHead = 0;
+		conflict = false;
+	}
+
+	void setValue(int cell, int value) {
+		write(size + cell, value);
+	}
+
+	void fix(int cell, int value) {
+		setValue(cell, value);
+		write(cell, valueMask(value));
+	}
+
+	/**
+	 * Fixes a value and removes it from the candidates of all peers of the cell.
+	 * A contradiction found while doing so makes the next {@link #propagate()} fail.
+	 */
+	void assign(int cell, int value) {
+		fix(cell, value);
+		if (peers == null)
+			return;
+		long mask = valueMask(value);
+		for (int peer : peers[cell]) {
+			long candidates = state[peer];
+			if (hasValue(peer)) {
+				if (value(peer) == value)
+					conflict = true;
+			}
+			else if ((candidates & mask) != 0) {
+				write(peer, candidates & ~mask);
+				if (candidates == mask)
+					conflict = true;
+			}
+		}
+	}
+
+	/**
+	 * Removes candidates from a cell without fixing it, even if only one candidate is left.
+	 * Removing the last candidate makes the next {@link #propagate()} fail.
+	 *
+	 * @return The candidates that were removed
+	 */
+	@Override
+	public long eliminate(int cell, long mask) {
+		long candidates = state[cell];
+		long removed = candidates & mask;
+		if (removed == 0)
+			return 0;
+		write(cell, candidates & ~mask);
+		if (removed == candidates)
+			conflict = true;
+		return removed;
+	}
+
+	void resetCandidates(int cell) {
+		write(cell, hasValue(cell) ? valueMask(value(cell)) : allValuesMask(topology.getMaxValue()));
+	}
+
+	void resetCandidates() {
+		for (int cell = 0; cell < size; cell++)
+			resetCandidates(cell);
+		clearDirty();
+		allDirty = true;
+	}
+
+	SudokuProgress removePossibles(int cell, long existingNumbers) {
+		if (topology.isBlocked(cell))
+			return SudokuProgress.NO_PROGRESS;
+
+		long possible = state[cell] & ~existingNumbers;
+		write(cell, possible);
+		if (possible == 0)
+			return SudokuProgress.FAILED;
+		if ((possible & (possible - 1)) == 0) {
+			assign(cell, singleValue(possible));
+			return SudokuProgress.PROGRESS;
+		}
+		return SudokuProgress.NO_PROGRESS;
+	}
+
+	/**
+	 * @return A mask with bit (value - 1) set for every value that exists in the rule
+	 */
+	long existingValues(int rule) {
+		ensureIndexed();
+		long existingNumbers = 0L;
+		int slot = countBase + rule * ruleWords + 1;
+		for (int word = 0; word < ruleWords - 1; word++) {
+			// Sets the top bit of every byte that is not zero, then gathers those bits into the top byte
+			long counts = state[slot + word];
+			long nonZero = (((counts & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL) | counts) & 0x8080808080808080L;
+			existingNumbers |= ((nonZero >>> 7) * 0x0102040810204080L >>> 56) << (word * Byte.SIZE);
+		}
+		return existingNumbers;
+	}
+
+	/**
+	 * @return False if a value occurs more than once in the rule
+	 */
+	boolean checkValid(int rule) {
+		ensureIndexed();
+		int slot = countBase + rule * ruleWords + 1;
+		for (int word = 0; word < ruleWords - 1; word++) {
+			if ((state[slot + word] & 0xFEFEFEFEFEFEFEFEL) != 0)
+				return false;
+		}
+		return true;
+	}
+
+	boolean checkComplete(int rule) {
+		ensureIndexed();
+		return state[countBase + rule * ruleWords] == topology.rule(rule).length && checkValid(rule);
+	}
+
+	/**
+	 * @return False if a value occurs more than once in a rule or the values break any other constraint
+	 */
+	boolean checkValid() {
+		ensureIndexed();
+		return state[duplicatesSlot] == 0 && checkConstraints();
+	}
+
+	/**
+	 * @return False if the values break any of the constraints besides the rules
+	 */
+	boolean checkConstraints() {
+		if (cellConstraints == null)
+			return true;
+		for (int constraint = 0; constraint < topology.getConstraintCount(); constraint++) {
+			if (!topology.constraint(constraint).checkValid(this))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return True if every cell in a rule has a value, no value occurs more than once in a rule and the values
+	 * satisfy all other constraints
+	 */
+	boolean isComplete() {
+		ensureIndexed();
+		return state[missingSlot] == 0 && checkValid();
+	}
+
+	SudokuProgress removePossibles(int rule) {
+		long existingNumbers = existingValues(rule);
+
+		SudokuProgress result = SudokuProgress.NO_PROGRESS;
+		for (int cell : topology.rule(rule)) {
+			if (!hasValue(cell))
+				result = result.combineWith(removePossibles(cell, existingNumbers));
+		}
+		return result;
+	}
+
+	SudokuProgress checkForOnlyOnePossibility(int rule) {
+		// Check if there is only one cell within the rule that can have a specific value.
+		// The values possible in at least one and in at least two cells are collected in one pass over the rule.
+		int[] cells = topology.rule(rule);
+		long once = 0L;
+		long twice = 0L;
+		long existingNumbers = 0L;
+		for (int cell : cells) {
+			if (hasValue(cell)) {
+				existingNumbers |= valueMask(value(cell));
+				continue;
+			}
+			long candidates = state[cell];
+			twice |= once & candidates;
+			once |= candidates;
+		}
+
+		// The rule has to contain every value from 1 to its size
+		long required = allValuesMask(cells.length) & ~existingNumbers;
+		if ((required & ~once) != 0)
+			return SudokuProgress.FAILED;
+
+		long singles = required & ~twice;
+		if (singles == 0)
+			return SudokuProgress.NO_PROGRESS;
+		while (singles != 0) {
+			long mask = Long.lowestOneBit(singles);
+			singles &= singles - 1;
+			for (int cell : cells) {
+				// A cell assigned another value since the pass above leaves this rule dirty, to be checked again
+				if (!hasValue(cell) && (state[cell] & mask) != 0) {
+					assign(cell, singleValue(mask));
+					break;
+				}
+			}
+		}
+		return SudokuProgress.PROGRESS;
+	}
+
+	SudokuProgress solve(int rule) {
+		SudokuProgress result1 = removePossibles(rule);
+		SudokuProgress result2 = checkForOnlyOnePossibility(rule);
+		return result1.combineWith(result2);
+	}
+
+	/**
+	 * Re-examines the rules that have changed since the last propagation
+	 * until no more progress can be made, starting with all rules after the candidates have been reset.
+	 * After that each enabled technique is tried, and the rules are propagated again whenever one makes progress.
+	 */
+	SudokuProgress propagate() {
+		ensureIndexed();
+		if (allDirty) {
+			allDirty = false;
+			for (int rule = 0; rule < dirtyQueue.length; rule++)
+				markDirty(rule);
+		}
+
+		SudokuProgress result = propagateRules();
+		while (techniques != 0 && result != SudokuProgress.FAILED) {
+			if (deductions == null)
+				deductions = new SudokuDeductions(this);
+			if (deductions.apply(techniques) == SudokuProgress.NO_PROGRESS)
+				break;
+			result = SudokuProgress.PROGRESS.combineWith(propagateRules());
+		}
+		return result;
+	}
+
+	private SudokuProgress propagateRules() {
+		SudokuProgress result = SudokuProgress.NO_PROGRESS;
+		if (state[duplicatesSlot] != 0)
+			conflict = true;
+		while (dirtyCount > 0 && !conflict) {
+			int rule = pollDirty();
+			stats.simplifyIterations++;
+			if (rule < ruleCount)
+				result = result.combineWith(solve(rule));
+			else
+				result = result.combineWith(topology.constraint(rule - ruleCount).propagate(this));
+			if (result == SudokuProgress.FAILED)
+				break;
+		}
+		if (conflict)
+			result = SudokuProgress.FAILED;
+		if (result == SudokuProgress.FAILED)
+			clearDirty();
+		return result;
+	}
+
+	/**
+	 * @return The tile to guess a value for next, chosen by the {@link BranchingStrategy},
+	 * or -1 if all cells in rules have been decided
+	 */
+	int chooseTile() {
+		ensureIndexed();
+		return branching.chooseTile(this);
+	}
+
+	/**
+	 * Find one of the cells with the least number of alternatives, but that still has at least 2 alternatives
+	 *
+	 * @param count The smallest number of alternatives to look for
+	 * @return The first such cell, or -1 if all cells in rules have been decided
+	 */
+	int minimumRemainingValues(int count) {
+		for (; count <= topology.getMaxValue(); count++) {
+			int base = bucketBase + count * bucketWords;
+			for (int word = 0; word < bucketWords; word++) {
+				for (long bits = state[base + word]; bits != 0; bits &= bits - 1) {
+					int cell = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+					if (cellRules[cell].length > 0)
+						return cell;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The number of peers of a cell that do not have a value yet
+	 */
+	int unsolvedPeers(int cell) {
+		int count = 0;
+		for (int peer : peers[cell]) {
+			if (!hasValue(peer))
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return The number of peers of a cell that do not have a value yet and have <code>mask</code> as a candidate
+	 */
+	int peersWithCandidate(int cell, long mask) {
+		int count = 0;
+		for (int peer : peers[cell]) {
+			if (!hasValue(peer) && (state[peer] & mask) != 0)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return The cells with the given number of candidates, as a bitmap
+	 */
+	long bucket(int count, int word) {
+		return state[bucketBase + count * bucketWords + word];
+	}
+
+	int bucketWords() {
+		return bucketWords;
+	}
+
+	BranchingStrategy getBranching() {
+		return branching;
+	}
+
+	void setBranching(BranchingStrategy branching) {
+		this.branching = branching;
+	}
+
+	/**
+	 * Searches for solutions of this grid in place and passes every solution to <code>visitor</code>.
+	 * <p>
+	 * The simplifications made before the first branch are kept, everything else is rolled back.
+	 *
+	 * @return False if the search was stopped by the visitor, true if the whole tree was explored
+	 * @see SudokuSearch
+	 */
+	boolean search(SudokuSolutionVisitor visitor) {
+		SudokuSearch search = new SudokuSearch(this);
+		try {
+			while (search.next(visitor)) {
+				if (!visitor.solution(this))
+					return false;
+			}
+			return search.isFinished();
+		}
+		finally {
+			search.close();
+		}
+	}
+
+	/**
+	 * Counts the solutions of this grid in place without copying any of them, multiplying the counts of parts of
+	 * the grid that have become independent instead of searching their combinations. The grid is left as it was.
+	 *
+	 * @param limit The count at which to stop searching
+	 * @return The number of solutions, or <code>limit</code> if there are at least that many
+	 * @see SudokuComponents
+	 */
+	long countSolutions(long limit) {
+		return new SudokuComponents(this, null).count(limit);
+	}
+
+	int getTechniques() {
+		return techniques;
+	}
+
+	/**
+	 * @param techniques The techniques to use in {@link #propagate()}, as a mask of {@link SudokuTechnique#mask()}
+	 */
+	void setTechniques(int techniques) {
+		this.techniques = techniques;
+	}
+
+	/**
+	 * @return The counters of the current or most recent solve of this grid
+	 */
+	SolveStats stats() {
+		return stats;
+	}
+
+	SolveStats resetStats(SudokuEngine engine) {
+		stats = new SolveStats(engine);
+		return stats;
+	}
+
+	void attach(SudokuTrail trail) {
+		if (this.trail != null)
+			throw new IllegalStateException("Grid is already being searched");
+		this.trail = trail;
+	}
+
+	void detach(SudokuTrail trail) {
+		if (this.trail == trail)
+			this.trail = null;
+	}
+
+}
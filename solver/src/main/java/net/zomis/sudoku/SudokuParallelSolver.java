@@ -0,0 +1,166 @@
+package net.zomis.sudoku;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Solves boards on a work-stealing {@link ForkJoinPool}.
+ * <p>
+ * Every branch above the depth cutoff is forked as its own task working on a copy of the board.
+ * At the cutoff a task searches the rest of its subtree sequentially, in place.
+ * <p>
+ * The {@link SolveStats} of the board add up the counters of all tasks, except for the total time
+ * which is the wall time of the whole solve.
+ */
+public class SudokuParallelSolver {
+
+	public static final int DEFAULT_DEPTH_CUTOFF = 3;
+
+	private final ForkJoinPool	pool;
+	private final int			depthCutoff;
+	private final boolean		firstSolutionOnly;
+
+	public SudokuParallelSolver() {
+		this(ForkJoinPool.commonPool(), DEFAULT_DEPTH_CUTOFF, false);
+	}
+
+	/**
+	 * @param pool The pool to run the search on
+	 * @param depthCutoff The number of guesses after which branches are no longer forked
+	 * @param firstSolutionOnly If true, cancel all remaining tasks once the first solution has been found
+	 */
+	public SudokuParallelSolver(ForkJoinPool pool, int depthCutoff, boolean firstSolutionOnly) {
+		if (depthCutoff < 0)
+			throw new IllegalArgumentException("depthCutoff cannot be negative. Was " + depthCutoff);
+		this.pool = pool;
+		this.depthCutoff = depthCutoff;
+		this.firstSolutionOnly = firstSolutionOnly;
+	}
+
+	/**
+	 * Finds the solutions of a board, the same way as {@link SudokuBoard#solve()} does.
+	 * The board itself is simplified as far as possible before branching.
+	 *
+	 * @return All solutions, or at most one if only the first solution was requested
+	 */
+	public Collection<SudokuBoard> solve(SudokuBoard board) {
+		board.resetSolutions();
+		SolveStats stats = board.grid().resetStats(SudokuEngine.BACKTRACKING);
+		long time = System.nanoTime();
+		AtomicBoolean found = new AtomicBoolean();
+		List<SudokuGrid> solutions = pool.invoke(new SearchTask(board.grid(), 0, found, stats));
+		stats.totalNanos = System.nanoTime() - time;
+		if (firstSolutionOnly && solutions.size() > 1)
+			solutions = solutions.subList(0, 1);
+		return SudokuBoard.toBoards(solutions);
+	}
+
+	/**
+	 * Counts the solutions of a board, the same way as {@link SudokuBoard#countSolutions(long)} does,
+	 * except that independent parts of the board that are large enough are counted in parallel.
+	 * The board itself is not modified.
+	 *
+	 * @param limit The count at which to stop searching
+	 * @return The number of solutions, or <code>limit</code> if there are at least that many
+	 */
+	public long countSolutions(SudokuBoard board, long limit) {
+		SudokuGrid copy = new SudokuGrid(board.grid());
+		copy.resetCandidates();
+		return new SudokuComponents(copy, pool).count(limit);
+	}
+
+	private class SearchTask extends RecursiveTask<List<SudokuGrid>> {
+		private static final long serialVersionUID = 1L;
+
+		private final SudokuGrid	grid;
+		private final int			depth;
+		private final AtomicBoolean	found;
+		private final SolveStats	total;
+
+		SearchTask(SudokuGrid grid, int depth, AtomicBoolean found, SolveStats total) {
+			this.grid = grid;
+			this.depth = depth;
+			this.found = found;
+			this.total = total;
+		}
+
+		private boolean isStopped() {
+			return firstSolutionOnly && found.get();
+		}
+
+		@Override
+		protected List<SudokuGrid> compute() {
+			if (isStopped())
+				return Collections.emptyList();
+			SolveStats stats = depth == 0 ? total : grid.resetStats(SudokuEngine.BACKTRACKING);
+			try {
+				return depth >= depthCutoff ? searchSequential() : branch(stats);
+			}
+			finally {
+				if (stats != total) {
+					synchronized (total) {
+						total.add(stats, depth);
+					}
+				}
+			}
+		}
+
+		private List<SudokuGrid> branch(SolveStats stats) {
+			stats.nodes++;
+			long time = System.nanoTime();
+			SudokuProgress progress = grid.propagate();
+			stats.propagationNanos += System.nanoTime() - time;
+			if (progress == SudokuProgress.FAILED) {
+				stats.backtracks++;
+				return Collections.emptyList();
+			}
+
+			int cell = grid.chooseTile();
+			if (cell < 0) {
+				found.set(true);
+				stats.solutions++;
+				return Collections.singletonList(new SudokuGrid(grid));
+			}
+
+			List<SearchTask> tasks = new ArrayList<>();
+			long candidates = grid.candidates(cell);
+			while (candidates != 0) {
+				int value = SudokuGrid.singleValue(candidates);
+				candidates &= candidates - 1;
+				SudokuGrid next = new SudokuGrid(grid);
+				next.fix(cell, value);
+				stats.guesses++;
+				tasks.add(new SearchTask(next, depth + 1, found, total));
+			}
+			invokeAll(tasks);
+
+			List<SudokuGrid> results = new ArrayList<>();
+			for (SearchTask task : tasks)
+				results.addAll(task.join());
+			return results;
+		}
+
+		private List<SudokuGrid> searchSequential() {
+			List<SudokuGrid> results = new ArrayList<>();
+			grid.search(new SudokuSolutionVisitor() {
+				@Override
+				public boolean solution(SudokuGrid solution) {
+					results.add(new SudokuGrid(solution));
+					found.set(true);
+					return !firstSolutionOnly;
+				}
+
+				@Override
+				public boolean isCancelled() {
+					return isStopped();
+				}
+			});
+			return results;
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+package net.zomis.sudoku;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A group of tiles that may not contain any value more than once and has to contain every value from 1 to its size.
+ * <p>
+ * The solver propagates rules with its own code, which {@link #propagate(SudokuDomains)} does the same as.
+ */
+public class SudokuRule implements Constraint, Iterable<SudokuTile> {
+	
+	SudokuRule(SudokuBoard board, int index) {
+		this.board = board;
+		this.index = index;
+	}
+
+	private final SudokuBoard board;
+	private final int index;
+
+	public boolean checkValid() {
+		return board.grid().checkValid(index);
+	}
+
+	public boolean checkComplete() {
+		return board.grid().checkComplete(index);
+	}
+
+	/**
+	 * @return A mask with bit (value - 1) set for every value that exists in this rule
+	 */
+	long existingValues() {
+		return board.grid().existingValues(index);
+	}
+
+	SudokuProgress removePossibles() {
+		return board.grid().removePossibles(index);
+	}
+
+	SudokuProgress checkForOnlyOnePossibility() {
+		return board.grid().checkForOnlyOnePossibility(index);
+	}
+
+	SudokuProgress solve() {
+		return board.grid().solve(index);
+	}
+
+	@Override
+	public int[] getCells() {
+		return board.topology().rule(index).clone();
+	}
+
+	/**
+	 * Removes the values in this rule from the candidates of its other tiles, and leaves a value that only one tile
+	 * can have as the only candidate of that tile
+	 */
+	@Override
+	public SudokuProgress propagate(SudokuDomains domains) {
+		int[] cells = board.topology().rule(index);
+		long existing = 0L;
+		for (int cell : cells) {
+			int value = domains.value(cell);
+			if (value != SudokuTile.CLEARED) {
+				if ((existing & SudokuGrid.valueMask(value)) != 0)
+					return SudokuProgress.FAILED;
+				existing |= SudokuGrid.valueMask(value);
+			}
+		}
+
+		SudokuProgress result = SudokuProgress.NO_PROGRESS;
+		long once = 0L;
+		long twice = 0L;
+		for (int cell : cells) {
+			if (domains.value(cell) != SudokuTile.CLEARED)
+				continue;
+			if (domains.eliminate(cell, existing) != 0)
+				result = SudokuProgress.PROGRESS;
+			long candidates = domains.candidates(cell);
+			if (candidates == 0)
+				return SudokuProgress.FAILED;
+			twice |= once & candidates;
+			once |= candidates;
+		}
+
+		long required = SudokuGrid.allValuesMask(cells.length) & ~existing;
+		if ((required & ~once) != 0)
+			return SudokuProgress.FAILED;
+		for (long singles = required & ~twice; singles != 0; singles &= singles - 1) {
+			long mask = Long.lowestOneBit(singles);
+			for (int cell : cells) {
+				if (domains.value(cell) == SudokuTile.CLEARED && (domains.candidates(cell) & mask) != 0) {
+					if (domains.eliminate(cell, ~mask) != 0)
+						result = SudokuProgress.PROGRESS;
+					if (domains.candidates(cell) == 0)
+						return SudokuProgress.FAILED;
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean checkValid(SudokuDomains domains) {
+		long existing = 0L;
+		for (int cell : board.topology().rule(index)) {
+			int value = domains.value(cell);
+			if (value == SudokuTile.CLEARED)
+				continue;
+			if ((existing & SudokuGrid.valueMask(value)) != 0)
+				return false;
+			existing |= SudokuGrid.valueMask(value);
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getDescription();
+	}
+
+	private List<SudokuTile> tiles() {
+		int[] cells = board.topology().rule(index);
+		List<SudokuTile> tiles = new ArrayList<>(cells.length);
+		for (int cell : cells)
+			tiles.add(board.tile(cell));
+		return tiles;
+	}
+
+	public Set<SudokuTile> getTiles() {
+		return new HashSet<>(tiles());
+	}
+	
+	@Override
+	public Iterator<SudokuTile> iterator() {
+		return tiles().iterator();
+	}
+
+	@Override
+	public String getDescription() {
+		return board.topology().description(index);
+	}
+}
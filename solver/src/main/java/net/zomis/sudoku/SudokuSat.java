@@ -0,0 +1,180 @@
+package net.zomis.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Solves a grid by encoding it as clauses for a {@link SudokuSatSolver}.
+ * <p>
+ * The grid is first simplified by {@link SudokuGrid#propagate()}. Then every candidate of every tile in a rule
+ * that has no value becomes a variable. Each tile gets exactly one of its candidates, and in each rule a value that
+ * is not placed yet occurs at most once and, for the values 1 to the size of the rule, at least once. This is the same
+ * requirement that {@link SudokuGrid#checkForOnlyOnePossibility(int)} places on a rule.
+ * <p>
+ * After each solution a clause excluding it is added and the solver continues with what it has learnt,
+ * until there are no more solutions. The grid is restored to its original state afterwards.
+ */
+final class SudokuSat {
+
+	/** Groups larger than this are kept to at most one with a sequential counter instead of a clause per pair */
+	private static final int	PAIRWISE_LIMIT	= 6;
+
+	private final SudokuGrid		grid;
+	private final SudokuSatSolver	solver	= new SudokuSatSolver();
+
+	/** For each tile, the variable of its lowest candidate, with the others following in order */
+	private int[]	firstVariable;
+	private int[]	open;
+	private int		openCount;
+	private int[]	buffer	= new int[64];
+
+	SudokuSat(SudokuGrid grid) {
+		this.grid = grid;
+	}
+
+	/**
+	 * @return False if the search was stopped by the visitor, true if the whole tree was explored
+	 */
+	boolean search(SudokuSolutionVisitor visitor) {
+		grid.ensureIndexed();
+		long[] original = grid.state.clone();
+		SolveStats stats = grid.stats();
+		try {
+			if (grid.propagate() == SudokuProgress.FAILED) {
+				stats.backtracks++;
+				return true;
+			}
+			encode();
+			long[] simplified = grid.state.clone();
+			// Every decision is a node, counted as the search goes so that node limits apply to it
+			SudokuSolutionVisitor cancellation = new SudokuSolutionVisitor() {
+				@Override
+				public boolean solution(SudokuGrid solution) {
+					return true;
+				}
+
+				@Override
+				public boolean isCancelled() {
+					stats.nodes = 1 + solver.getDecisions();
+					return visitor.isCancelled();
+				}
+			};
+			while (true) {
+				int result = solver.solve(cancellation);
+				stats.nodes = 1 + solver.getDecisions();
+				stats.guesses = solver.getDecisions();
+				stats.backtracks = solver.getConflicts();
+				stats.enter(solver.getPeakLevel());
+				if (result == SudokuSatSolver.CANCELLED)
+					return false;
+				if (result == SudokuSatSolver.UNSATISFIABLE)
+					return true;
+
+				int[] blocking = new int[openCount];
+				for (int i = 0; i < openCount; i++) {
+					int cell = open[i];
+					int value = modelValue(cell);
+					blocking[i] = SudokuSatSolver.negative(variable(cell, value));
+					grid.fix(cell, value);
+				}
+				stats.solutions++;
+				if (!visitor.solution(grid))
+					return false;
+				System.arraycopy(simplified, 0, grid.state, 0, simplified.length);
+				grid.clearDirty();
+				solver.addClause(blocking);
+			}
+		}
+		finally {
+			System.arraycopy(original, 0, grid.state, 0, original.length);
+			grid.clearDirty();
+		}
+	}
+
+	private int variable(int cell, int value) {
+		long below = grid.candidates(cell) & (SudokuGrid.valueMask(value) - 1);
+		return firstVariable[cell] + Long.bitCount(below);
+	}
+
+	private int modelValue(int cell) {
+		int variable = firstVariable[cell];
+		for (long candidates = grid.candidates(cell); candidates != 0; candidates &= candidates - 1) {
+			if (solver.isTrue(variable++))
+				return SudokuGrid.singleValue(candidates);
+		}
+		throw new IllegalStateException("No value for tile " + cell + " in the model");
+	}
+
+	private void encode() {
+		SudokuTopology topology = grid.topology;
+		int[][] cellRules = topology.cellRules();
+		int size = topology.size();
+		firstVariable = new int[size];
+		open = new int[size];
+		Arrays.fill(firstVariable, -1);
+		for (int cell = 0; cell < size; cell++) {
+			if (cellRules[cell].length == 0 || grid.hasValue(cell))
+				continue;
+			open[openCount++] = cell;
+			long candidates = grid.candidates(cell);
+			firstVariable[cell] = solver.newVariable();
+			for (int i = 1; i < Long.bitCount(candidates); i++)
+				solver.newVariable();
+
+			// Exactly one candidate
+			int count = 0;
+			for (long bits = candidates; bits != 0; bits &= bits - 1)
+				add(count++, SudokuSatSolver.positive(variable(cell, SudokuGrid.singleValue(bits))));
+			solver.addClause(Arrays.copyOf(buffer, count));
+			atMostOne(count);
+		}
+
+		for (int rule = 0; rule < topology.getRuleCount(); rule++) {
+			int[] cells = topology.rule(rule);
+			long missing = ~grid.existingValues(rule) & SudokuGrid.allValuesMask(topology.getMaxValue());
+			long required = SudokuGrid.allValuesMask(cells.length);
+			for (long bits = missing; bits != 0; bits &= bits - 1) {
+				int value = SudokuGrid.singleValue(bits);
+				long mask = Long.lowestOneBit(bits);
+				int count = 0;
+				for (int cell : cells) {
+					if (!grid.hasValue(cell) && (grid.candidates(cell) & mask) != 0)
+						add(count++, SudokuSatSolver.positive(variable(cell, value)));
+				}
+				if ((required & mask) != 0)
+					solver.addClause(Arrays.copyOf(buffer, count));
+				atMostOne(count);
+			}
+		}
+	}
+
+	private void add(int index, int literal) {
+		if (index == buffer.length)
+			buffer = Arrays.copyOf(buffer, index * 2);
+		buffer[index] = literal;
+	}
+
+	/**
+	 * Adds clauses that keep at most one of the first <code>count</code> literals of the buffer true
+	 */
+	private void atMostOne(int count) {
+		if (count <= PAIRWISE_LIMIT) {
+			for (int i = 0; i < count; i++) {
+				for (int j = i + 1; j < count; j++)
+					solver.addClause(buffer[i] ^ 1, buffer[j] ^ 1);
+			}
+			return;
+		}
+		// Sequential counter: s[i] is true if one of the literals up to i is
+		int previous = solver.newVariable();
+		solver.addClause(buffer[0] ^ 1, SudokuSatSolver.positive(previous));
+		for (int i = 1; i < count - 1; i++) {
+			int next = solver.newVariable();
+			solver.addClause(buffer[i] ^ 1, SudokuSatSolver.positive(next));
+			solver.addClause(SudokuSatSolver.negative(previous), SudokuSatSolver.positive(next));
+			solver.addClause(buffer[i] ^ 1, SudokuSatSolver.negative(previous));
+			previous = next;
+		}
+		solver.addClause(buffer[count - 1] ^ 1, SudokuSatSolver.negative(previous));
+	}
+
+}
@@ -0,0 +1,531 @@
+package net.zomis.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * A conflict-driven clause learning SAT solver working on int arrays.
+ * <p>
+ * Variables are numbered from 0 and literal <code>2 * variable</code> is the variable being true,
+ * <code>2 * variable + 1</code> the variable being false. The solver uses two watched literals per clause,
+ * learns the first unique implication point of every conflict, picks variables by decaying activity with saved
+ * phases, restarts after a Luby sequence of conflicts and regularly deletes the half of its learnt clauses that
+ * spans the most decision levels.
+ * <p>
+ * Clauses may be added again after a call to {@link #solve(SudokuSolutionVisitor)}, such as a clause excluding the
+ * model just found, and the next call continues with everything learnt so far.
+ */
+final class SudokuSatSolver {
+
+	static final int	UNSATISFIABLE	= 0;
+	static final int	SATISFIABLE		= 1;
+	static final int	CANCELLED		= 2;
+
+	private static final int	UNASSIGNED			= 0;
+	private static final int	TRUE				= 1;
+	private static final int	FALSE				= -1;
+	private static final int	NO_REASON			= -1;
+	private static final int	RESTART_BASE		= 64;
+	private static final int	FIRST_REDUCE		= 2000;
+	private static final int	REDUCE_INCREMENT	= 300;
+	private static final double	VARIABLE_DECAY		= 0.95;
+
+	private int			variables;
+	private boolean		unsatisfiable;
+
+	// Clauses, with null for deleted ones
+	private int[][]		clauses			= new int[64][];
+	private boolean[]	learnt			= new boolean[64];
+	private int[]		lbd				= new int[64];
+	private int			clauseCount;
+	private int			learntCount;
+
+	// For each literal, the clauses that have it as one of their first two literals
+	private int[][]		watches			= new int[0][];
+	private int[]		watchCount		= new int[0];
+
+	// Assignment
+	private byte[]		assigns			= new byte[0];
+	private int[]		level			= new int[0];
+	private int[]		reason			= new int[0];
+	private boolean[]	phase			= new boolean[0];
+	private int[]		trail			= new int[0];
+	private int			trailSize;
+	private int[]		trailLimits		= new int[16];
+	private int			decisionLevel;
+	private int			propagated;
+
+	// Variable order, a heap by activity
+	private double[]	activity		= new double[0];
+	private double		increment		= 1;
+	private int[]		heap			= new int[0];
+	private int[]		heapIndex		= new int[0];
+	private int			heapSize;
+
+	// Conflict analysis
+	private boolean[]	seen			= new boolean[0];
+	private int[]		learntBuffer	= new int[16];
+	private int[]		levelStamp		= new int[16];
+	private int			stamp;
+
+	private long		conflicts;
+	private long		decisions;
+	private int			peakLevel;
+	private long		nextReduce		= FIRST_REDUCE;
+	private int			reductions;
+
+	/**
+	 * @return The number of the new variable
+	 */
+	int newVariable() {
+		int variable = variables++;
+		if (variable == assigns.length) {
+			int capacity = Math.max(16, variable * 2);
+			assigns = Arrays.copyOf(assigns, capacity);
+			level = Arrays.copyOf(level, capacity);
+			reason = Arrays.copyOf(reason, capacity);
+			phase = Arrays.copyOf(phase, capacity);
+			trail = Arrays.copyOf(trail, capacity);
+			activity = Arrays.copyOf(activity, capacity);
+			heap = Arrays.copyOf(heap, capacity);
+			heapIndex = Arrays.copyOf(heapIndex, capacity);
+			seen = Arrays.copyOf(seen, capacity);
+			watches = Arrays.copyOf(watches, capacity * 2);
+			watchCount = Arrays.copyOf(watchCount, capacity * 2);
+		}
+		reason[variable] = NO_REASON;
+		watches[2 * variable] = new int[4];
+		watches[2 * variable + 1] = new int[4];
+		heapIndex[variable] = -1;
+		heapInsert(variable);
+		return variable;
+	}
+
+	static int positive(int variable) {
+		return 2 * variable;
+	}
+
+	static int negative(int variable) {
+		return 2 * variable + 1;
+	}
+
+	private int value(int literal) {
+		int value = assigns[literal >> 1];
+		return (literal & 1) == 0 ? value : -value;
+	}
+
+	/**
+	 * @return True if the variable is true in the model found by the last successful {@link #solve(SudokuSolutionVisitor)}
+	 */
+	boolean isTrue(int variable) {
+		return assigns[variable] == TRUE;
+	}
+
+	/**
+	 * Adds a clause, undoing all decisions first. The literals may be reordered.
+	 */
+	void addClause(int... literals) {
+		cancelUntil(0);
+		if (unsatisfiable)
+			return;
+		int size = 0;
+		int[] clause = literals.clone();
+		for (int literal : clause) {
+			int value = value(literal);
+			if (value == TRUE)
+				return;
+			if (value == UNASSIGNED)
+				clause[size++] = literal;
+		}
+		if (size == 0) {
+			unsatisfiable = true;
+			return;
+		}
+		if (size == 1) {
+			enqueue(clause[0], NO_REASON);
+			return;
+		}
+		attach(Arrays.copyOf(clause, size), false, 0);
+	}
+
+	private int attach(int[] clause, boolean isLearnt, int levels) {
+		if (clauseCount == clauses.length) {
+			clauses = Arrays.copyOf(clauses, clauseCount * 2);
+			learnt = Arrays.copyOf(learnt, clauseCount * 2);
+			lbd = Arrays.copyOf(lbd, clauseCount * 2);
+		}
+		int id = clauseCount++;
+		clauses[id] = clause;
+		learnt[id] = isLearnt;
+		lbd[id] = levels;
+		watch(clause[0], id);
+		watch(clause[1], id);
+		if (isLearnt)
+			learntCount++;
+		return id;
+	}
+
+	private void watch(int literal, int clause) {
+		int[] list = watches[literal];
+		if (watchCount[literal] == list.length)
+			watches[literal] = list = Arrays.copyOf(list, list.length * 2);
+		list[watchCount[literal]++] = clause;
+	}
+
+	private void enqueue(int literal, int from) {
+		int variable = literal >> 1;
+		assigns[variable] = (byte) ((literal & 1) == 0 ? TRUE : FALSE);
+		level[variable] = decisionLevel;
+		reason[variable] = from;
+		trail[trailSize++] = literal;
+	}
+
+	/**
+	 * Propagates every assignment on the trail that has not been propagated yet
+	 *
+	 * @return The clause that became false, or -1 if there was no conflict
+	 */
+	private int propagate() {
+		while (propagated < trailSize) {
+			int falseLiteral = trail[propagated++] ^ 1;
+			int[] list = watches[falseLiteral];
+			int count = watchCount[falseLiteral];
+			int kept = 0;
+			for (int i = 0; i < count; i++) {
+				int id = list[i];
+				int[] clause = clauses[id];
+				if (clause == null)
+					continue;
+				if (clause[0] == falseLiteral) {
+					clause[0] = clause[1];
+					clause[1] = falseLiteral;
+				}
+				if (value(clause[0]) == TRUE) {
+					list[kept++] = id;
+					continue;
+				}
+				boolean moved = false;
+				for (int k = 2; k < clause.length; k++) {
+					if (value(clause[k]) != FALSE) {
+						clause[1] = clause[k];
+						clause[k] = falseLiteral;
+						watch(clause[1], id);
+						moved = true;
+						break;
+					}
+				}
+				if (moved)
+					continue;
+				list[kept++] = id;
+				if (value(clause[0]) == FALSE) {
+					while (++i < count)
+						list[kept++] = list[i];
+					watchCount[falseLiteral] = kept;
+					propagated = trailSize;
+					return id;
+				}
+				enqueue(clause[0], id);
+			}
+			watchCount[falseLiteral] = kept;
+		}
+		return -1;
+	}
+
+	/**
+	 * Searches for a model of the clauses
+	 *
+	 * @param cancellation Checked at every decision
+	 * @return {@link #SATISFIABLE}, {@link #UNSATISFIABLE} or {@link #CANCELLED}
+	 */
+	int solve(SudokuSolutionVisitor cancellation) {
+		if (unsatisfiable)
+			return UNSATISFIABLE;
+		int restarts = 0;
+		long restartAt = conflicts + RESTART_BASE * luby(restarts);
+		while (true) {
+			int conflict = propagate();
+			if (conflict >= 0) {
+				conflicts++;
+				if (decisionLevel == 0) {
+					unsatisfiable = true;
+					return UNSATISFIABLE;
+				}
+				learn(conflict);
+				increment /= VARIABLE_DECAY;
+				continue;
+			}
+
+			if (conflicts >= restartAt) {
+				cancelUntil(0);
+				restarts++;
+				restartAt = conflicts + RESTART_BASE * luby(restarts);
+			}
+			if (conflicts >= nextReduce) {
+				reduce();
+				reductions++;
+				nextReduce = conflicts + FIRST_REDUCE + (long) REDUCE_INCREMENT * reductions;
+			}
+
+			int variable = pickVariable();
+			if (variable < 0)
+				return SATISFIABLE;
+			decisions++;
+			if (cancellation.isCancelled())
+				return CANCELLED;
+			newDecisionLevel();
+			enqueue(phase[variable] ? positive(variable) : negative(variable), NO_REASON);
+		}
+	}
+
+	/**
+	 * @return The i:th element of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, ...
+	 */
+	static long luby(int i) {
+		int size = 1;
+		int sequence = 0;
+		while (size < i + 1) {
+			sequence++;
+			size = 2 * size + 1;
+		}
+		while (size - 1 != i) {
+			size = (size - 1) >> 1;
+			sequence--;
+			i = i % size;
+		}
+		return 1L << sequence;
+	}
+
+	private void newDecisionLevel() {
+		if (decisionLevel == trailLimits.length)
+			trailLimits = Arrays.copyOf(trailLimits, decisionLevel * 2);
+		trailLimits[decisionLevel++] = trailSize;
+		if (decisionLevel > peakLevel)
+			peakLevel = decisionLevel;
+	}
+
+	private void cancelUntil(int target) {
+		if (decisionLevel <= target)
+			return;
+		int limit = trailLimits[target];
+		for (int i = trailSize - 1; i >= limit; i--) {
+			int variable = trail[i] >> 1;
+			phase[variable] = (trail[i] & 1) == 0;
+			assigns[variable] = UNASSIGNED;
+			reason[variable] = NO_REASON;
+			if (heapIndex[variable] < 0)
+				heapInsert(variable);
+		}
+		trailSize = limit;
+		propagated = limit;
+		decisionLevel = target;
+	}
+
+	private int pickVariable() {
+		while (heapSize > 0) {
+			int variable = heapRemoveMax();
+			if (assigns[variable] == UNASSIGNED)
+				return variable;
+		}
+		return -1;
+	}
+
+	/**
+	 * Learns the first unique implication point clause of a conflict, jumps back to where it asserts a literal
+	 * and asserts it
+	 */
+	private void learn(int conflict) {
+		int size = 1;
+		int paths = 0;
+		int literal = -1;
+		int index = trailSize - 1;
+		do {
+			int[] clause = clauses[conflict];
+			for (int j = literal < 0 ? 0 : 1; j < clause.length; j++) {
+				int other = clause[j];
+				int variable = other >> 1;
+				if (seen[variable] || level[variable] == 0)
+					continue;
+				bump(variable);
+				seen[variable] = true;
+				if (level[variable] >= decisionLevel)
+					paths++;
+				else {
+					if (size == learntBuffer.length)
+						learntBuffer = Arrays.copyOf(learntBuffer, size * 2);
+					learntBuffer[size++] = other;
+				}
+			}
+			while (!seen[trail[index] >> 1])
+				index--;
+			literal = trail[index--];
+			conflict = reason[literal >> 1];
+			seen[literal >> 1] = false;
+			paths--;
+		} while (paths > 0);
+		learntBuffer[0] = literal ^ 1;
+
+		// Drops the literals that are implied by the others
+		int[] clause = new int[size];
+		clause[0] = learntBuffer[0];
+		int kept = 1;
+		for (int i = 1; i < size; i++) {
+			int from = reason[learntBuffer[i] >> 1];
+			if (from == NO_REASON || !isImpliedBySeen(clauses[from]))
+				clause[kept++] = learntBuffer[i];
+		}
+		for (int i = 1; i < size; i++)
+			seen[learntBuffer[i] >> 1] = false;
+		if (kept < size) {
+			clause = Arrays.copyOf(clause, kept);
+			size = kept;
+		}
+
+		int target = 0;
+		if (size > 1) {
+			int highest = 1;
+			for (int i = 2; i < size; i++) {
+				if (level[clause[i] >> 1] > level[clause[highest] >> 1])
+					highest = i;
+			}
+			int swap = clause[1];
+			clause[1] = clause[highest];
+			clause[highest] = swap;
+			target = level[clause[1] >> 1];
+		}
+		int levels = levels(clause);
+		cancelUntil(target);
+		if (size == 1)
+			enqueue(clause[0], NO_REASON);
+		else
+			enqueue(clause[0], attach(clause, true, levels));
+	}
+
+	private boolean isImpliedBySeen(int[] clause) {
+		for (int j = 1; j < clause.length; j++) {
+			int variable = clause[j] >> 1;
+			if (!seen[variable] && level[variable] > 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return The number of different decision levels in a clause
+	 */
+	private int levels(int[] clause) {
+		if (decisionLevel + 1 >= levelStamp.length)
+			levelStamp = Arrays.copyOf(levelStamp, (decisionLevel + 1) * 2);
+		stamp++;
+		int count = 0;
+		for (int literal : clause) {
+			int at = level[literal >> 1];
+			if (levelStamp[at] != stamp) {
+				levelStamp[at] = stamp;
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Deletes the half of the learnt clauses that spans the most decision levels, except for clauses of only two
+	 * levels and clauses that are the reason for a current assignment
+	 */
+	private void reduce() {
+		int[] candidates = new int[learntCount];
+		int count = 0;
+		for (int id = 0; id < clauseCount; id++) {
+			int[] clause = clauses[id];
+			if (clause == null || !learnt[id] || lbd[id] <= 2)
+				continue;
+			int variable = clause[0] >> 1;
+			if (reason[variable] == id && value(clause[0]) == TRUE)
+				continue;
+			candidates[count++] = id;
+		}
+		int[] order = Arrays.copyOf(candidates, count);
+		// Sorts by levels, most first, and then by age, oldest first
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i++)
+			keys[i] = ((long) (Integer.MAX_VALUE - lbd[order[i]]) << 32) | order[i];
+		Arrays.sort(keys);
+		for (int i = 0; i < count / 2; i++) {
+			int id = (int) keys[i];
+			clauses[id] = null;
+			learntCount--;
+		}
+	}
+
+	private void bump(int variable) {
+		activity[variable] += increment;
+		if (activity[variable] > 1e100) {
+			for (int i = 0; i < variables; i++)
+				activity[i] *= 1e-100;
+			increment *= 1e-100;
+		}
+		if (heapIndex[variable] >= 0)
+			heapUp(heapIndex[variable]);
+	}
+
+	private void heapInsert(int variable) {
+		heapIndex[variable] = heapSize;
+		heap[heapSize++] = variable;
+		heapUp(heapSize - 1);
+	}
+
+	private int heapRemoveMax() {
+		int top = heap[0];
+		heapIndex[top] = -1;
+		heapSize--;
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapIndex[heap[0]] = 0;
+			heapDown(0);
+		}
+		return top;
+	}
+
+	private void heapUp(int index) {
+		int variable = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) >> 1;
+			if (activity[heap[parent]] >= activity[variable])
+				break;
+			heap[index] = heap[parent];
+			heapIndex[heap[index]] = index;
+			index = parent;
+		}
+		heap[index] = variable;
+		heapIndex[variable] = index;
+	}
+
+	private void heapDown(int index) {
+		int variable = heap[index];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= heapSize)
+				break;
+			if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]])
+				child++;
+			if (activity[heap[child]] <= activity[variable])
+				break;
+			heap[index] = heap[child];
+			heapIndex[heap[index]] = index;
+			index = child;
+		}
+		heap[index] = variable;
+		heapIndex[variable] = index;
+	}
+
+	long getConflicts() {
+		return conflicts;
+	}
+
+	long getDecisions() {
+		return decisions;
+	}
+
+	int getPeakLevel() {
+		return peakLevel;
+	}
+
+}
@@ -0,0 +1,141 @@
+package net.zomis.sudoku;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A depth-first search over a {@link SudokuGrid} that can be suspended at every solution and resumed later.
+ * <p>
+ * The search runs in place on the grid, with each guess recorded on a {@link SudokuTrail}. Instead of recursing,
+ * the tile and remaining candidates of every guess are kept on an explicit stack of primitive arrays.
+ */
+final class SudokuSearch {
+
+	private static final SudokuSolutionVisitor NOT_CANCELLED = grid -> true;
+
+	private final SudokuGrid	grid;
+	private final SudokuTrail	trail;
+	private final Random		random;
+
+	private int[]	cells		= new int[16];
+	private long[]	remaining	= new long[16];
+	private int[]	checkpoints	= new int[16];
+	private int		depth;
+
+	/** True when the grid is in a state that has not been simplified and examined yet */
+	private boolean	pending		= true;
+	private boolean	finished;
+
+	SudokuSearch(SudokuGrid grid) {
+		this(grid, null);
+	}
+
+	/**
+	 * @param random If not null, the candidates of each guess are tried in random order instead of in increasing order
+	 */
+	SudokuSearch(SudokuGrid grid, Random random) {
+		this.grid = grid;
+		this.trail = new SudokuTrail();
+		this.random = random;
+		grid.attach(trail);
+	}
+
+	/**
+	 * Advances to the next solution, leaving the grid in its solved state
+	 *
+	 * @return True if a solution was found, false if there are no more solutions
+	 */
+	boolean next() {
+		return next(NOT_CANCELLED);
+	}
+
+	/**
+	 * Advances to the next solution, checking <code>cancellation</code> at every node
+	 *
+	 * @return True if a solution was found, false if there are no more solutions or the search was cancelled
+	 */
+	boolean next(SudokuSolutionVisitor cancellation) {
+		while (!finished) {
+			if (pending) {
+				if (cancellation.isCancelled())
+					return false;
+				pending = false;
+				SolveStats stats = grid.stats();
+				stats.nodes++;
+				long time = System.nanoTime();
+				SudokuProgress progress = grid.propagate();
+				stats.propagationNanos += System.nanoTime() - time;
+				if (progress != SudokuProgress.FAILED) {
+					int cell = grid.chooseTile();
+					if (cell < 0) {
+						stats.solutions++;
+						return true; // The grid has been completed, the next call will backtrack from here
+					}
+					push(cell, grid.candidates(cell));
+				}
+				else
+					stats.backtracks++;
+			}
+			branch();
+		}
+		return false;
+	}
+
+	/**
+	 * Rolls back to the most recent guess that has candidates left and tries the next of them
+	 */
+	private void branch() {
+		while (depth > 0) {
+			int top = depth - 1;
+			trail.undo(grid.state, checkpoints[top]);
+			long candidates = remaining[top];
+			if (candidates == 0) {
+				depth--;
+				continue;
+			}
+			long candidate = random == null ? grid.getBranching().chooseValue(grid, cells[top], candidates) : randomBit(candidates);
+			remaining[top] = candidates & ~candidate;
+			grid.stats().guesses++;
+			grid.assign(cells[top], SudokuGrid.singleValue(candidate));
+			pending = true;
+			return;
+		}
+		finished = true;
+	}
+
+	private long randomBit(long candidates) {
+		for (int skip = random.nextInt(Long.bitCount(candidates)); skip > 0; skip--)
+			candidates &= candidates - 1;
+		return Long.lowestOneBit(candidates);
+	}
+
+	private void push(int cell, long candidates) {
+		if (depth == cells.length) {
+			cells = Arrays.copyOf(cells, depth * 2);
+			remaining = Arrays.copyOf(remaining, depth * 2);
+			checkpoints = Arrays.copyOf(checkpoints, depth * 2);
+		}
+		cells[depth] = cell;
+		remaining[depth] = candidates;
+		checkpoints[depth] = trail.checkpoint();
+		depth++;
+		grid.stats().enter(depth);
+	}
+
+	boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Stops the search and rolls the grid back to the state it had after the first simplification
+	 */
+	void close() {
+		if (depth > 0)
+			trail.undo(grid.state, checkpoints[0]);
+		depth = 0;
+		finished = true;
+		grid.clearDirty();
+		grid.detach(trail);
+	}
+
+}
@@ -0,0 +1,332 @@
+package net.zomis.sudoku;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Solves puzzles sent over HTTP, using only the HTTP server of the JDK.
+ * <p>
+ * <code>POST /solve?variant=classic</code> takes a puzzle in the format of {@link SudokuBatchSolver} as its body
+ * and answers with its solutions, one per line, or '-' if it has none. The variant is given by name or by
+ * {@link SudokuVariant#getId() id}. Optional parameters are <code>engine</code>, <code>limit</code> for the largest
+ * number of solutions to return and <code>timeout</code> in milliseconds, which cannot be more than the timeout of the
+ * server. A solve that passes its deadline is stopped and answered with 504, with the solutions found until then.
+ * <p>
+ * Every request runs on the {@link Executor} given to the server. At most a fixed number of puzzles are solved at
+ * the same time, and requests beyond that are answered with 503 right away instead of waiting. A request only counts
+ * once its puzzle has been read, so clients that are slow to send theirs do not hold back the others.
+ * <code>GET /stats</code> returns the request counters, the throughput and the latency of the answered solves,
+ * including those that passed their deadline, one per line.
+ * <p>
+ * Answers are small, so without the system property <code>sun.net.httpserver.nodelay=true</code> each one can wait
+ * for a delayed ACK. {@link #main(String[])} sets it, and applications embedding the server can set it before
+ * creating their first JDK HTTP server, knowing that it applies to all of them.
+ */
+public class SudokuServer {
+
+	public static final int		DEFAULT_PORT		= 8089;
+	public static final long	DEFAULT_TIMEOUT_MILLIS	= 1000;
+
+	private static final int	MAX_BODY_SIZE	= 1 << 16;
+	private static final double	NANOS_PER_MILLI	= 1000000.0;
+	private static final byte[]	NO_SOLUTION		= { '-', '\n' };
+
+	private final HttpServer			server;
+	private final int					maxInFlight;
+	private final Semaphore				permits;
+	private final long					timeoutNanos;
+	private final long					started			= System.nanoTime();
+	private final SolveStatsRegistry	stats			= new SolveStatsRegistry();
+	private final SolveHistogram		latency			= new SolveHistogram();
+	private final LongAdder				solved			= new LongAdder();
+	private final LongAdder				rejected		= new LongAdder();
+	private final LongAdder				timedOut		= new LongAdder();
+	private final LongAdder				invalid			= new LongAdder();
+
+	/**
+	 * @param address The address to listen on, with port 0 for any free port
+	 * @param executor The executor to handle each request on, such as a pool or one thread per request
+	 * @param maxInFlight The largest number of puzzles to solve at the same time
+	 * @param timeoutMillis The longest time to spend on one puzzle
+	 */
+	public SudokuServer(InetSocketAddress address, Executor executor, int maxInFlight, long timeoutMillis) throws IOException {
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException("maxInFlight must be at least 1. Was " + maxInFlight);
+		if (timeoutMillis < 1)
+			throw new IllegalArgumentException("timeoutMillis must be at least 1. Was " + timeoutMillis);
+		this.maxInFlight = maxInFlight;
+		this.permits = new Semaphore(maxInFlight);
+		this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		this.server = HttpServer.create(address, maxInFlight);
+		server.setExecutor(executor);
+		server.createContext("/solve", this::handleSolve);
+		server.createContext("/stats", this::handleStats);
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops accepting requests and waits at most <code>delaySeconds</code> for the current ones to finish
+	 */
+	public void stop(int delaySeconds) {
+		server.stop(delaySeconds);
+	}
+
+	/**
+	 * @return The port the server listens on
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * @return The statistics of all puzzles solved so far
+	 */
+	public SolveStatsRegistry getStats() {
+		return stats;
+	}
+
+	private void handleSolve(HttpExchange exchange) throws IOException {
+		long time = System.nanoTime();
+		try {
+			if (!exchange.getRequestMethod().equals("POST")) {
+				exchange.getResponseHeaders().set("Allow", "POST");
+				respond(exchange, 405, "Only POST is supported\n");
+				return;
+			}
+			// The body is read before taking a permit, so that slow uploads do not hold back the solves
+			SolveOptions options = new SolveOptions();
+			SudokuBoard board;
+			try {
+				board = read(exchange, options, time);
+			}
+			catch (IllegalArgumentException e) {
+				invalid.increment();
+				respond(exchange, 400, e.getMessage() + "\n");
+				return;
+			}
+			if (!permits.tryAcquire()) {
+				rejected.increment();
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				respond(exchange, 503, "Too many puzzles in progress\n");
+				return;
+			}
+			// The permit is released before answering, so that a client can send its next puzzle right away
+			Answer answer;
+			try {
+				answer = solve(board, options, time);
+			}
+			finally {
+				permits.release();
+			}
+			respond(exchange, answer.status, answer.body);
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Reads the puzzle of a request and sets the options from its parameters
+	 *
+	 * @throws IllegalArgumentException If the parameters or the puzzle are not valid
+	 */
+	private SudokuBoard read(HttpExchange exchange, SolveOptions options, long time) throws IOException {
+		Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+		SudokuVariant variant = variant(parameters.get("variant"));
+		if (parameters.containsKey("engine"))
+			options.setEngine(SudokuEngine.valueOf(parameters.get("engine").toUpperCase(Locale.ROOT)));
+		options.setSolutionLimit(parameters.containsKey("limit") ? Integer.parseInt(parameters.get("limit")) : 1);
+		long timeout = timeoutNanos;
+		if (parameters.containsKey("timeout"))
+			timeout = Math.min(timeout, TimeUnit.MILLISECONDS.toNanos(Long.parseLong(parameters.get("timeout"))));
+		options.setDeadline(time + timeout);
+		SudokuBoard board = variant.create();
+		board.checkCharacterFormat();
+		byte[] body = readBody(exchange.getRequestBody());
+		int length = body.length;
+		while (length > 0 && (body[length - 1] == '\n' || body[length - 1] == '\r'))
+			length--;
+		if (length != board.getCellCount())
+			throw new IllegalArgumentException("Expected " + board.getCellCount() + " cells for " + variant + ". Was " + length);
+		board.readCells(body, 0);
+		return board;
+	}
+
+	private Answer solve(SudokuBoard board, SolveOptions options, long time) {
+		SolveResult result = board.solve(options);
+		stats.record(result.getStats());
+		int lineSize = board.getCellCount() + 1;
+		byte[] body = new byte[lineSize * result.getSolutions().size()];
+		int offset = 0;
+		for (SudokuBoard solution : result.getSolutions()) {
+			solution.writeCells(body, offset);
+			offset += lineSize;
+			body[offset - 1] = '\n';
+		}
+		latency.record(System.nanoTime() - time);
+		if (result.getStatus() == SolveResult.Status.DEADLINE) {
+			timedOut.increment();
+			return new Answer(504, body);
+		}
+		solved.increment();
+		return new Answer(200, body.length == 0 ? NO_SOLUTION : body);
+	}
+
+	private void handleStats(HttpExchange exchange) throws IOException {
+		try {
+			double seconds = (System.nanoTime() - started) / NANOS_PER_MILLI / 1000;
+			StringBuilder text = new StringBuilder();
+			line(text, "uptime.seconds", seconds);
+			line(text, "requests.solved", solved.sum());
+			line(text, "requests.rejected", rejected.sum());
+			line(text, "requests.timedOut", timedOut.sum());
+			line(text, "requests.invalid", invalid.sum());
+			line(text, "requests.inFlight", maxInFlight - permits.availablePermits());
+			line(text, "throughput.perSecond", solved.sum() / seconds);
+			line(text, "latency.meanMillis", latency.getMean() / NANOS_PER_MILLI);
+			line(text, "latency.p50Millis", latency.getPercentile(50) / NANOS_PER_MILLI);
+			line(text, "latency.p90Millis", latency.getPercentile(90) / NANOS_PER_MILLI);
+			line(text, "latency.p99Millis", latency.getPercentile(99) / NANOS_PER_MILLI);
+			line(text, "latency.p999Millis", latency.getPercentile(99.9) / NANOS_PER_MILLI);
+			line(text, "latency.maxMillis", latency.getMax() / NANOS_PER_MILLI);
+			line(text, "solve.nodes", stats.getNodes());
+			line(text, "solve.guesses", stats.getGuesses());
+			respond(exchange, 200, text.toString());
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	private static void line(StringBuilder text, String name, long value) {
+		text.append(name).append(' ').append(value).append('\n');
+	}
+
+	private static void line(StringBuilder text, String name, double value) {
+		text.append(name).append(' ').append(String.format(Locale.ROOT, "%.3f", value)).append('\n');
+	}
+
+	private static SudokuVariant variant(String name) {
+		if (name == null)
+			return SudokuVariant.CLASSIC;
+		if (!name.isEmpty() && Character.isDigit(name.charAt(0)))
+			return SudokuVariant.forId(Integer.parseInt(name));
+		return SudokuVariant.forName(name);
+	}
+
+	private static Map<String, String> parameters(String query) throws UnsupportedEncodingException {
+		Map<String, String> parameters = new HashMap<>();
+		if (query == null)
+			return parameters;
+		for (String pair : query.split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0)
+				parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+		}
+		return parameters;
+	}
+
+	private static byte[] readBody(InputStream input) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = input.read(buffer)) >= 0) {
+			body.write(buffer, 0, read);
+			if (body.size() > MAX_BODY_SIZE)
+				throw new IllegalArgumentException("Request body larger than " + MAX_BODY_SIZE + " bytes");
+		}
+		return body.toByteArray();
+	}
+
+	private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+		respond(exchange, status, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+
+	/**
+	 * Sends answers without waiting to fill a packet, for every JDK HTTP server created afterwards in this JVM,
+	 * unless the property was given on the command line
+	 */
+	static void enableNoDelay() {
+		if (System.getProperty("sun.net.httpserver.nodelay") == null)
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private static final class Answer {
+		private final int		status;
+		private final byte[]	body;
+
+		Answer(int status, byte[] body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		Answer(int status, String text) {
+			this(status, text.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Usage: <code>SudokuServer [--port n] [--threads n] [--max-in-flight n] [--timeout ms]</code>
+	 * <p>
+	 * Listens on the loopback address only. With <code>--threads 0</code>, the default, every request gets a thread
+	 * of its own, so only the limit on puzzles in progress bounds the number of threads busy solving.
+	 */
+	public static void main(String[] args) throws IOException {
+		enableNoDelay();
+		int port = DEFAULT_PORT;
+		int threads = 0;
+		int maxInFlight = Runtime.getRuntime().availableProcessors() * 2;
+		long timeout = DEFAULT_TIMEOUT_MILLIS;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--port"))
+				port = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--threads"))
+				threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--max-in-flight"))
+				maxInFlight = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--timeout"))
+				timeout = Long.parseLong(args[++i]);
+			else {
+				System.err.println("Usage: SudokuServer [--port n] [--threads n] [--max-in-flight n] [--timeout ms]");
+				System.exit(1);
+			}
+		}
+
+		ExecutorService executor = threads > 0 ? Executors.newFixedThreadPool(threads) : Executors.newCachedThreadPool();
+		SudokuServer server = new SudokuServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), executor,
+				maxInFlight, timeout);
+		server.getStats().register();
+		server.start();
+		System.err.printf("Listening on http://127.0.0.1:%d/solve%n", server.getPort());
+	}
+
+}
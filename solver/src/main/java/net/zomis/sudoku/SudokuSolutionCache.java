@@ -0,0 +1,438 @@
+package net.zomis.sudoku;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of solutions in front of {@link SudokuBoard#solve(SudokuEngine)}, evicting the least recently
+ * used puzzle when full.
+ * <p>
+ * Classic 9x9 puzzles are stored by a canonical form, so that a puzzle also hits the cache when an equivalent
+ * puzzle has been solved before: one that differs only by relabeling the digits, permuting the rows within a band
+ * or the columns within a stack, or transposing the grid. The stored solutions are mapped back through the same
+ * transformation. Puzzles of any other topology are only found again if they match exactly.
+ * <p>
+ * The cache may be shared between threads. Puzzles are solved outside of the lock, so the same puzzle may be
+ * solved more than once if it is requested by several threads at the same time.
+ */
+public class SudokuSolutionCache {
+
+	private static final int	SIZE		= 9;
+	private static final int	CELLS		= SIZE * SIZE;
+	private static final int	BOX			= 3;
+
+	/** Canonical searches that take more steps than this, which only happens for highly symmetric puzzles, use exact matching instead */
+	private static final int	MAX_CANONICAL_STEPS	= 200000;
+
+	private final int			maxSize;
+	private final Map<Key, byte[][]>	entries;
+	private final Map<SudokuTopology, TopologyKey>	topologies	= Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final LongAdder	hits		= new LongAdder();
+	private final LongAdder	misses		= new LongAdder();
+	private final LongAdder	evictions	= new LongAdder();
+
+	/**
+	 * @param maxSize The number of puzzles to keep the solutions of
+	 */
+	public SudokuSolutionCache(int maxSize) {
+		if (maxSize < 1)
+			throw new IllegalArgumentException("maxSize must be at least 1. Was " + maxSize);
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<Key, byte[][]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, byte[][]> eldest) {
+				if (size() <= SudokuSolutionCache.this.maxSize)
+					return false;
+				evictions.increment();
+				return true;
+			}
+		};
+	}
+
+	public Collection<SudokuBoard> solve(SudokuBoard board) {
+		return solve(board, SudokuEngine.BACKTRACKING);
+	}
+
+	/**
+	 * Finds the solutions of a board from the cache, or solves it with <code>engine</code> and caches the solutions.
+	 * Only a board that is solved is simplified in place, just as by {@link SudokuBoard#solve(SudokuEngine)}.
+	 * Boards with {@link Constraint}s besides their rules are always solved, without using the cache.
+	 */
+	public Collection<SudokuBoard> solve(SudokuBoard board, SudokuEngine engine) {
+		SudokuGrid grid = board.grid();
+		if (grid.topology.getConstraintCount() > 0)
+			return board.solve(engine);
+		TopologyKey topology = layoutKey(grid.topology);
+		Transform transform = topology.classic ? Transform.canonical(grid) : null;
+		Key key = transform == null ? new Key(topology, values(grid)) : new Key(topology, transform.apply(grid));
+
+		byte[][] solutions;
+		synchronized (entries) {
+			solutions = entries.get(key);
+		}
+		if (solutions != null) {
+			hits.increment();
+			return toBoards(board, solutions, transform);
+		}
+
+		misses.increment();
+		Collection<SudokuBoard> result = board.solve(engine);
+		solutions = new byte[result.size()][];
+		int i = 0;
+		for (SudokuBoard solution : result) {
+			SudokuGrid solved = solution.grid();
+			solutions[i++] = transform == null ? values(solved) : transform.apply(solved);
+		}
+		synchronized (entries) {
+			entries.put(key, solutions);
+		}
+		return result;
+	}
+
+	private static Collection<SudokuBoard> toBoards(SudokuBoard board, byte[][] solutions, Transform transform) {
+		Collection<SudokuBoard> results = new ArrayList<>(solutions.length);
+		for (byte[] values : solutions) {
+			SudokuGrid grid = new SudokuGrid(board.grid());
+			if (transform == null) {
+				for (int cell = 0; cell < values.length; cell++) {
+					if (values[cell] != SudokuTile.CLEARED)
+						grid.fix(cell, values[cell]);
+				}
+			}
+			else
+				transform.restore(values, grid);
+			results.add(new SudokuBoard(grid));
+		}
+		return results;
+	}
+
+	private static byte[] values(SudokuGrid grid) {
+		byte[] values = new byte[grid.topology.size()];
+		for (int cell = 0; cell < values.length; cell++)
+			values[cell] = (byte) grid.value(cell);
+		return values;
+	}
+
+	private TopologyKey layoutKey(SudokuTopology topology) {
+		topology.freeze();
+		TopologyKey key = topologies.get(topology);
+		if (key == null) {
+			key = new TopologyKey(topology);
+			topologies.put(topology, key);
+		}
+		return key;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return The number of puzzles currently cached
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SudokuSolutionCache [size=" + size() + "/" + maxSize + ", hits=" + getHits() + ", misses=" + getMisses()
+				+ ", evictions=" + getEvictions() + "]";
+	}
+
+	/**
+	 * Everything about a topology that matters for its solutions, so that equal topologies of different boards match
+	 */
+	private static final class TopologyKey {
+		private final int[]		signature;
+		private final int		hash;
+		private final boolean	classic;
+
+		TopologyKey(SudokuTopology topology) {
+			int size = topology.size();
+			int length = 4 + size;
+			for (int rule = 0; rule < topology.getRuleCount(); rule++)
+				length += 1 + topology.rule(rule).length;
+			signature = new int[length];
+			int i = 0;
+			signature[i++] = topology.getWidth();
+			signature[i++] = topology.getHeight();
+			signature[i++] = topology.getMaxValue();
+			signature[i++] = topology.getRuleCount();
+			for (int cell = 0; cell < size; cell++)
+				signature[i++] = topology.isBlocked(cell) ? 1 : 0;
+			for (int rule = 0; rule < topology.getRuleCount(); rule++) {
+				int[] cells = topology.rule(rule);
+				signature[i++] = cells.length;
+				for (int cell : cells)
+					signature[i++] = cell;
+			}
+			hash = Arrays.hashCode(signature);
+			classic = isClassic(topology);
+		}
+
+		/**
+		 * @return True if the topology has exactly the rows, columns and 3x3 boxes of a classic board
+		 */
+		private static boolean isClassic(SudokuTopology topology) {
+			if (topology.getWidth() != SIZE || topology.getHeight() != SIZE || topology.getMaxValue() != SIZE
+					|| topology.getRuleCount() != SIZE * 3)
+				return false;
+			Set<Set<Integer>> expected = new HashSet<>();
+			for (int i = 0; i < SIZE; i++) {
+				Set<Integer> row = new HashSet<>();
+				Set<Integer> column = new HashSet<>();
+				Set<Integer> box = new HashSet<>();
+				for (int j = 0; j < SIZE; j++) {
+					row.add(i * SIZE + j);
+					column.add(j * SIZE + i);
+					box.add((i / BOX * BOX + j / BOX) * SIZE + i % BOX * BOX + j % BOX);
+				}
+				expected.add(row);
+				expected.add(column);
+				expected.add(box);
+			}
+			for (int rule = 0; rule < topology.getRuleCount(); rule++) {
+				Set<Integer> cells = new HashSet<>();
+				for (int cell : topology.rule(rule))
+					cells.add(cell);
+				if (!expected.remove(cells))
+					return false;
+			}
+			for (int cell = 0; cell < CELLS; cell++) {
+				if (topology.isBlocked(cell))
+					return false;
+			}
+			return expected.isEmpty();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof TopologyKey && Arrays.equals(signature, ((TopologyKey) obj).signature);
+		}
+	}
+
+	private static final class Key {
+		private final TopologyKey	topology;
+		private final byte[]	values;
+		private final int		hash;
+
+		Key(TopologyKey topology, byte[] values) {
+			this.topology = topology;
+			this.values = values;
+			this.hash = topology.hashCode() * 31 + Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return hash == other.hash && topology.equals(other.topology) && Arrays.equals(values, other.values);
+		}
+	}
+
+	/**
+	 * Maps a classic grid to its canonical form: the smallest grid, read row by row, among all that can be made by
+	 * transposing, permuting rows within bands and columns within stacks, and then labeling the digits
+	 * 1 to 9 in order of first appearance. Empty cells are ordered after all digits.
+	 */
+	static final class Transform {
+		private static final int	EMPTY	= SIZE + 1;
+		private static final int	UNSET	= SIZE + 2;
+
+		private boolean			transposed;
+		private final int[]		rows	= new int[SIZE];
+		private final int[]		columns	= new int[SIZE];
+		/** The label of each digit, and the digit of each label */
+		private final int[]		labels	= new int[SIZE + 1];
+		private final int[]		digits	= new int[SIZE + 1];
+
+		private Transform() {
+		}
+
+		/**
+		 * @return The transform to the canonical form of the grid,
+		 * or null if the grid is too symmetric to find it in reasonable time
+		 */
+		static Transform canonical(SudokuGrid grid) {
+			Search search = new Search(grid);
+			if (!search.run())
+				return null;
+			Transform transform = search.best;
+			// Digits that are not in the puzzle are interchangeable, label them in order
+			int next = 1;
+			for (int digit = 1; digit <= SIZE; digit++) {
+				if (transform.labels[digit] != 0)
+					next = Math.max(next, transform.labels[digit] + 1);
+			}
+			for (int digit = 1; digit <= SIZE; digit++) {
+				if (transform.labels[digit] == 0)
+					transform.labels[digit] = next++;
+				transform.digits[transform.labels[digit]] = digit;
+			}
+			return transform;
+		}
+
+		private int source(int row, int column) {
+			return transposed ? columns[column] * SIZE + rows[row] : rows[row] * SIZE + columns[column];
+		}
+
+		/**
+		 * @return The labels of the grid in canonical order, with 0 for empty cells
+		 */
+		byte[] apply(SudokuGrid grid) {
+			byte[] result = new byte[CELLS];
+			for (int row = 0; row < SIZE; row++) {
+				for (int column = 0; column < SIZE; column++) {
+					int value = grid.value(source(row, column));
+					result[row * SIZE + column] = (byte) (value == SudokuTile.CLEARED ? 0 : labels[value]);
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Fixes the values of a grid from their labels in canonical order
+		 */
+		void restore(byte[] canonical, SudokuGrid grid) {
+			for (int row = 0; row < SIZE; row++) {
+				for (int column = 0; column < SIZE; column++) {
+					int label = canonical[row * SIZE + column];
+					if (label != 0)
+						grid.fix(source(row, column), digits[label]);
+				}
+			}
+		}
+
+		/**
+		 * A depth-first search over the transformations that builds the output one cell at a time, choosing each row
+		 * and column of the source when it is first needed and pruning as soon as the output is worse than the best so far
+		 */
+		private static final class Search {
+			private final int[]		values	= new int[CELLS];
+			private final Transform	current	= new Transform();
+			private final Transform	best	= new Transform();
+			private final int[]		bestOutput	= new int[CELLS];
+			private final boolean[]	rowUsed		= new boolean[SIZE];
+			private final boolean[]	columnUsed	= new boolean[SIZE];
+			private int				nextLabel;
+			private int				steps;
+
+			Search(SudokuGrid grid) {
+				for (int cell = 0; cell < CELLS; cell++)
+					values[cell] = grid.value(cell);
+				Arrays.fill(bestOutput, UNSET);
+			}
+
+			boolean run() {
+				for (int transposed = 0; transposed < 2; transposed++) {
+					current.transposed = transposed == 1;
+					Arrays.fill(current.rows, -1);
+					Arrays.fill(current.columns, -1);
+					Arrays.fill(current.labels, 0);
+					nextLabel = 1;
+					if (!search(0))
+						return false;
+				}
+				return true;
+			}
+
+			private boolean search(int position) {
+				if (++steps > MAX_CANONICAL_STEPS)
+					return false;
+				if (position == CELLS) {
+					best.transposed = current.transposed;
+					System.arraycopy(current.rows, 0, best.rows, 0, SIZE);
+					System.arraycopy(current.columns, 0, best.columns, 0, SIZE);
+					System.arraycopy(current.labels, 0, best.labels, 0, SIZE + 1);
+					return true;
+				}
+				int row = position / SIZE;
+				int column = position % SIZE;
+				if (current.rows[row] < 0)
+					return choose(position, row, current.rows, rowUsed);
+				if (current.columns[column] < 0)
+					return choose(position, column, current.columns, columnUsed);
+
+				int digit = values[current.source(row, column)];
+				int value = digit == SudokuTile.CLEARED ? EMPTY : current.labels[digit] != 0 ? current.labels[digit] : nextLabel;
+				if (value > bestOutput[position])
+					return true;
+				if (value < bestOutput[position]) {
+					bestOutput[position] = value;
+					Arrays.fill(bestOutput, position + 1, CELLS, UNSET);
+				}
+				boolean labeled = digit != SudokuTile.CLEARED && current.labels[digit] == 0;
+				if (labeled)
+					current.labels[digit] = nextLabel++;
+				boolean completed = search(position + 1);
+				if (labeled) {
+					current.labels[digit] = 0;
+					nextLabel--;
+				}
+				return completed;
+			}
+
+			/**
+			 * Tries every unused source line of the band or stack for the output line <code>index</code>
+			 */
+			private boolean choose(int position, int index, int[] lines, boolean[] used) {
+				int first = index / BOX * BOX;
+				for (int line = first; line < first + BOX; line++) {
+					if (used[line])
+						continue;
+					used[line] = true;
+					lines[index] = line;
+					boolean completed = search(position);
+					lines[index] = -1;
+					used[line] = false;
+					if (!completed)
+						return false;
+				}
+				return true;
+			}
+		}
+	}
+
+}
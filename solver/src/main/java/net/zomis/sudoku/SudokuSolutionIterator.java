@@ -0,0 +1,42 @@
+package net.zomis.sudoku;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the solutions of a grid, running the search only when the next solution is requested
+ */
+class SudokuSolutionIterator implements Iterator<SudokuBoard> {
+
+	private final SudokuGrid	grid;
+	private final SudokuSearch	search;
+	private boolean				ready;
+
+	SudokuSolutionIterator(SudokuGrid grid) {
+		grid.resetCandidates();
+		this.grid = grid;
+		this.search = new SudokuSearch(grid);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (!ready && !search.isFinished()) {
+			ready = search.next();
+			if (!ready)
+				search.close();
+		}
+		return ready;
+	}
+
+	@Override
+	public SudokuBoard next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		ready = false;
+		return new SudokuBoard(new SudokuGrid(grid));
+	}
+
+	void close() {
+		search.close();
+	}
+
+}
@@ -0,0 +1,25 @@
+package net.zomis.sudoku;
+
+/**
+ * Receives the solutions found by a {@link SudokuGrid} search.
+ */
+interface SudokuSolutionVisitor {
+
+	/**
+	 * Called with the grid in its solved state. The grid is changed again once this method returns,
+	 * so it has to be copied if it should be kept.
+	 *
+	 * @return True to continue searching, false to stop the search
+	 */
+	boolean solution(SudokuGrid grid);
+
+	/**
+	 * Checked at every node of the search
+	 *
+	 * @return True if the search should stop as soon as possible
+	 */
+	default boolean isCancelled() {
+		return false;
+	}
+
+}
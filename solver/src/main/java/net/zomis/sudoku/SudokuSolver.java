@@ -1,20 +1,22 @@
-﻿package net.zomis.sudoku;
+package net.zomis.sudoku;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class SudokuSolver {
 
 	public static void main(String[] args) {
-		solveFail();
-		solveClassic();
-		solveSmall();
-		solveExtraZones();
-		solveHyper();
-		solveSamurai();
-		solveIncompleteClassic();
-		solveHard();
+		completeSolve(fail());
+		completeSolve(classic());
+		completeSolve(small());
+		completeSolve(extraZones());
+		completeSolve(hyper());
+		completeSolve(samurai());
+		completeSolve(incompleteClassic());
+		completeSolve(hard());
 	}
 
-	private static void solveHard() {
+	static SudokuBoard hard() {
 		SudokuBoard board = SudokuFactory.classicWith3x3Boxes();
 		board.addRow("8........");
 		board.addRow("..36.....");
@@ -25,19 +27,19 @@ public class SudokuSolver {
 		board.addRow("..1....68");
 		board.addRow("..85...1.");
 		board.addRow(".9....4..");
-		completeSolve(board);
+		return board;
 	}
 
-	private static void solveFail() {
+	static SudokuBoard fail() {
 		SudokuBoard board = SudokuFactory.sizeAndBoxes(4, 4, 2, 2)
 			.addRow("0003")
 			.addRow("0204") // the 2 must be a 1 on this row to be solvable
 			.addRow("1000")
 			.addRow("4000");
-		completeSolve(board);
+		return board;
 	}
 
-	private static void solveExtraZones() {
+	static SudokuBoard extraZones() {
 		// http://en.wikipedia.org/wiki/File:Oceans_Hypersudoku18_Puzzle.svg
 		SudokuBoard board = SudokuFactory.classicWith3x3BoxesAndHyperRegions();
 		board.addRow(".......1.");
@@ -49,19 +51,19 @@ public class SudokuSolver {
 		board.addRow("....8....");
 		board.addRow("58....9..");
 		board.addRow("69.......");
-		completeSolve(board);
+		return board;
 	}
 
-	private static void solveSmall() {
+	static SudokuBoard small() {
 		SudokuBoard board = SudokuFactory.sizeAndBoxes(4, 4, 2, 2);
 		board.addRow("0003");
 		board.addRow("0004");
 		board.addRow("1000");
 		board.addRow("4000");
-		completeSolve(board);
+		return board;
 	}
 
-	private static void solveHyper() {
+	static SudokuBoard hyper() {
 		// http://en.wikipedia.org/wiki/File:A_nonomino_sudoku.svg
 		String[] areas = new String[] { "111233333", "111222333", "144442223",
 				"114555522", "444456666", "775555688", "977766668",
@@ -76,11 +78,10 @@ public class SudokuSolver {
 		board.addRow(".8.3.4.6.");
 		board.addRow("..4.1.9..");
 		board.addRow("5.......7");
-		completeSolve(board);
-
+		return board;
 	}
 
-	private static void solveSamurai() {
+	static SudokuBoard samurai() {
 		// http://www.freesamuraisudoku.com/1001HardSamuraiSudokus.aspx?puzzle=42
 		SudokuBoard board = SudokuFactory.samurai();
 		board.addRow("6..8..9..///.....38..");
@@ -104,10 +105,10 @@ public class SudokuSolver {
 		board.addRow(".......2.///.31...9..");
 		board.addRow("..17.....///..7......");
 		board.addRow(".7.6...84///8...7..5.");
-		completeSolve(board);
+		return board;
 	}
 
-	private static void solveClassic() {
+	static SudokuBoard classic() {
 		SudokuBoard board = SudokuFactory.classicWith3x3Boxes();
 		board.addRow("...84...9");
 		board.addRow("..1.....5");
@@ -118,10 +119,10 @@ public class SudokuSolver {
 		board.addRow(".2491...7");
 		board.addRow("9.....5..");
 		board.addRow("3...84...");
-		completeSolve(board);
+		return board;
 	}
 
-	private static void solveIncompleteClassic() {
+	static SudokuBoard incompleteClassic() {
 		SudokuBoard board = SudokuFactory.classicWith3x3Boxes();
 		board.addRow("...84...9");
 		board.addRow("..1.....5");
@@ -132,7 +133,7 @@ public class SudokuSolver {
 		board.addRow(".24.1...7"); // Was ".2491...7"
 		board.addRow("9........");
 		board.addRow("3...84...");
-		completeSolve(board);
+		return board;
 	}
 
 	private static void completeSolve(SudokuBoard board) {
@@ -145,6 +146,7 @@ public class SudokuSolver {
 			throw new IllegalStateException("Board does not have all valid rules");
 		}
 		
+		SudokuBoard original = new SudokuBoard(board);
 		long time = System.nanoTime();
 		Collection<SudokuBoard> solutions = board.solve();
 		time = System.nanoTime() - time;
@@ -172,5 +174,33 @@ public class SudokuSolver {
 			}
 		}
 		System.out.println("Solutions found: " + solutions.size() + " in " + time / 1000000.0);
+		System.out.println("  " + board.getSolveStats());
+
+		for (SudokuEngine engine : SudokuEngine.values()) {
+			if (engine == SudokuEngine.BACKTRACKING)
+				continue;
+			long engineTime = System.nanoTime();
+			int engineSolutions = new SudokuBoard(original).solve(engine).size();
+			engineTime = System.nanoTime() - engineTime;
+			System.out.println("  " + engine + ": " + engineSolutions + " in " + engineTime / 1000000.0);
+			if (engineSolutions != solutions.size())
+				throw new AssertionError(engine + " found " + engineSolutions + " solutions, expected " + solutions.size());
+		}
+
+		compareTechniques("NONE", original, EnumSet.noneOf(SudokuTechnique.class), solutions.size());
+		for (SudokuTechnique technique : SudokuTechnique.values())
+			compareTechniques(technique.name(), original, EnumSet.of(technique), solutions.size());
+		compareTechniques("ALL", original, EnumSet.allOf(SudokuTechnique.class), solutions.size());
+	}
+
+	private static void compareTechniques(String name, SudokuBoard original, Set<SudokuTechnique> techniques, int expected) {
+		SudokuBoard board = new SudokuBoard(original).setTechniques(techniques);
+		long time = System.nanoTime();
+		int solutions = board.solve().size();
+		time = System.nanoTime() - time;
+		System.out.println("  " + name + ": " + solutions + " in " + time / 1000000.0
+				+ " with " + board.getSolveStats().getGuesses() + " guesses");
+		if (solutions != expected)
+			throw new AssertionError(name + " found " + solutions + " solutions, expected " + expected);
 	}
 }
@@ -0,0 +1,89 @@
+package net.zomis.sudoku;
+import java.util.Locale;
+
+/**
+ * The symmetries that the clues of a generated puzzle can have, see {@link SudokuGenerator}
+ */
+public enum SudokuSymmetry {
+
+	NONE(false) {
+		@Override
+		int[] images(int x, int y, int width, int height) {
+			return new int[] { x, y };
+		}
+	},
+
+	/**
+	 * The same clues after turning the board half a turn
+	 */
+	ROTATIONAL(false) {
+		@Override
+		int[] images(int x, int y, int width, int height) {
+			return new int[] { x, y, width - 1 - x, height - 1 - y };
+		}
+	},
+
+	/**
+	 * The same clues after turning the board a quarter of a turn, which requires a square board
+	 */
+	QUARTER_TURN(true) {
+		@Override
+		int[] images(int x, int y, int width, int height) {
+			int n = width - 1;
+			return new int[] { x, y, n - y, x, n - x, n - y, y, n - x };
+		}
+	},
+
+	/**
+	 * Mirrored between the left and the right half
+	 */
+	HORIZONTAL(false) {
+		@Override
+		int[] images(int x, int y, int width, int height) {
+			return new int[] { x, y, width - 1 - x, y };
+		}
+	},
+
+	/**
+	 * Mirrored between the top and the bottom half
+	 */
+	VERTICAL(false) {
+		@Override
+		int[] images(int x, int y, int width, int height) {
+			return new int[] { x, y, x, height - 1 - y };
+		}
+	},
+
+	/**
+	 * Mirrored along the diagonal from the top left corner, which requires a square board
+	 */
+	DIAGONAL(true) {
+		@Override
+		int[] images(int x, int y, int width, int height) {
+			return new int[] { x, y, y, x };
+		}
+	};
+
+	private final boolean	requiresSquare;
+
+	private SudokuSymmetry(boolean requiresSquare) {
+		this.requiresSquare = requiresSquare;
+	}
+
+	boolean supports(int width, int height) {
+		return !requiresSquare || width == height;
+	}
+
+	/**
+	 * @return The positions that a position is mapped to by this symmetry, including itself, as x and y pairs
+	 */
+	abstract int[] images(int x, int y, int width, int height);
+
+	/**
+	 * @param name The name of a symmetry, in any case and with '-' in place of '_'
+	 */
+	public static SudokuSymmetry forName(String name) {
+		return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+	}
+
+}
@@ -0,0 +1,48 @@
+package net.zomis.sudoku;
+
+/**
+ * Deduction techniques that can be enabled in addition to the basic rule simplification, which only finds tiles
+ * with one possible value and values with one possible tile in a rule.
+ * <p>
+ * They work on rules of any shape and are tried in the order declared here, and only when the basic
+ * simplification can make no more progress.
+ */
+public enum SudokuTechnique {
+
+	/**
+	 * If one rule's possible tiles for a value are all within another rule, the value is removed from the
+	 * rest of the other rule. This covers both pointing pairs and box-line reduction.
+	 */
+	LOCKED_CANDIDATES,
+
+	/**
+	 * Two tiles in a rule with the same two possible values, which are then removed from the rest of the rule
+	 */
+	NAKED_PAIRS,
+
+	/**
+	 * Two values that are only possible in the same two tiles of a rule, which then can not have any other values
+	 */
+	HIDDEN_PAIRS,
+
+	/**
+	 * Three tiles in a rule that together have three possible values, which are then removed from the rest of the rule
+	 */
+	NAKED_TRIPLES,
+
+	/**
+	 * Three values that are only possible in the same three tiles of a rule, which then can not have any other values
+	 */
+	HIDDEN_TRIPLES,
+
+	/**
+	 * Two disjoint rules whose possible tiles for a value are all within two other disjoint rules, each of which
+	 * crosses both of the first rules, which removes the value from the rest of the other two rules
+	 */
+	X_WING;
+
+	int mask() {
+		return 1 << ordinal();
+	}
+
+}
@@ -0,0 +1,95 @@
+package net.zomis.sudoku;
+
+/**
+ * A view of one tile of a board, as returned by {@link SudokuBoard#tile(int, int)}
+ */
+public class SudokuTile {
+	public static final int	CLEARED	= 0;
+	public static final int	MAX_SUPPORTED_VALUE	= Long.SIZE;
+	private final SudokuBoard	_board;
+	private final int		_index;
+	private final int		_x;
+	private final int		_y;
+
+	SudokuTile(SudokuBoard board, int index, int x, int y) {
+		this._board = board;
+		this._index = index;
+		this._x = x;
+		this._y = y;
+	}
+
+	public int getValue() {
+		return _board.grid().value(_index);
+	}
+
+	public void setValue(int value) {
+		_board.setValue(_index, value);
+	}
+
+	public boolean hasValue() {
+		return getValue() != CLEARED;
+	}
+
+	public String toStringSimple() {
+		return String.valueOf(getValue());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Value %d at pos %d, %d. ", getValue(), _x, _y,
+				getPossibleCount());
+	}
+
+	void resetPossibles() {
+		_board.grid().resetCandidates(_index);
+	}
+
+	public void block() {
+		_board.block(_index);
+	}
+
+	void fix(int value, String reason) {
+//		System.out.printf("Fixing %d on pos %d, %d: %s", value, _x, _y, reason);
+		_board.grid().fix(_index, value);
+	}
+
+	SudokuProgress removePossibles(long existingNumbers) {
+		// Takes the current possible values and removes the ones existing in `existingNumbers`
+		return _board.grid().removePossibles(_index, existingNumbers);
+	}
+
+	public boolean isPossibleValue(int i) {
+		if (i < 1 || i > MAX_SUPPORTED_VALUE)
+			return false;
+		return (getPossibleMask() & SudokuGrid.valueMask(i)) != 0;
+	}
+
+	long getPossibleMask() {
+		return _board.grid().candidates(_index);
+	}
+
+	int getIndex() {
+		return _index;
+	}
+
+	public int getX() {
+		return _x;
+	}
+
+	public int getY() {
+		return _y;
+	}
+
+	/**
+	 * A blocked field can not contain a value -- used for creating 'holes' in the map
+	 * 
+	 * @return True if this field is blocked, false otherwise
+	 */
+	public boolean IsBlocked() {
+		return _board.topology().isBlocked(_index);
+	}
+
+	public int getPossibleCount() {
+		return IsBlocked() ? 1 : Long.bitCount(getPossibleMask());
+	}
+}
@@ -0,0 +1,298 @@
+package net.zomis.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * The shape of a board: its size, which cells are blocked, which cells belong to each rule and any other
+ * {@link Constraint}s on them.
+ * Cells are identified by their index <code>y * width + x</code>.
+ * <p>
+ * A topology is only modified while a board is being built. Once it has been shared it is frozen, which builds the
+ * index from each cell to its rules and peers, and a board that wants to change it has to work on its own copy.
+ * A frozen topology never changes and may be shared by any number of boards in any threads, each of which only holds
+ * its own {@link SudokuGrid} state. The topology of every {@link SudokuVariant} is built once and cached.
+ */
+public final class SudokuTopology {
+
+	/** The largest number of cells in a rule, so that the occurrences of a value in a rule can be counted in a byte */
+	static final int	MAX_RULE_SIZE	= 255;
+
+	private final int		width;
+	private final int		height;
+	private final int		maxValue;
+	private final long[]	blocked;
+	private int[][]			rules;
+	private String[]		descriptions;
+	private int				ruleCount;
+	private Constraint[]	constraints	= new Constraint[0];
+	private int[][]			constraintCells;
+	private int[][]			cellRules;
+	private int[][]			cellConstraints;
+	private int[][]			peers;
+	private int[]			ruleOverlaps;
+	private int				coveredCells;
+	private int				uncoveredCells;
+	private volatile boolean	frozen;
+
+	SudokuTopology(int width, int height, int maxValue) {
+		if (maxValue > SudokuTile.MAX_SUPPORTED_VALUE)
+			throw new IllegalArgumentException("maxValue cannot be greater than "
+					+ SudokuTile.MAX_SUPPORTED_VALUE + ". Was " + maxValue);
+		this.width = width;
+		this.height = height;
+		this.maxValue = maxValue;
+		this.blocked = new long[(width * height + Long.SIZE - 1) / Long.SIZE];
+		this.rules = new int[8][];
+		this.descriptions = new String[8];
+	}
+
+	private SudokuTopology(SudokuTopology copy) {
+		this.width = copy.width;
+		this.height = copy.height;
+		this.maxValue = copy.maxValue;
+		this.blocked = copy.blocked.clone();
+		this.rules = copy.rules.clone();
+		this.descriptions = copy.descriptions.clone();
+		this.ruleCount = copy.ruleCount;
+		this.constraints = copy.constraints;
+	}
+
+	/**
+	 * @return A topology that may be modified, which is this one unless it has been frozen
+	 */
+	SudokuTopology mutable() {
+		return frozen ? new SudokuTopology(this) : this;
+	}
+
+	boolean isFrozen() {
+		return frozen;
+	}
+
+	synchronized SudokuTopology freeze() {
+		if (!frozen) {
+			buildIndex();
+			frozen = true;
+		}
+		return this;
+	}
+
+	private void buildIndex() {
+		int size = size();
+		int[] counts = new int[size];
+		for (int rule = 0; rule < ruleCount; rule++) {
+			for (int cell : rules[rule])
+				counts[cell]++;
+		}
+		cellRules = new int[size][];
+		coveredCells = 0;
+		uncoveredCells = 0;
+		for (int cell = 0; cell < size; cell++) {
+			cellRules[cell] = new int[counts[cell]];
+			if (counts[cell] > 0)
+				coveredCells++;
+			else if (!isBlocked(cell))
+				uncoveredCells++;
+		}
+		Arrays.fill(counts, 0);
+		for (int rule = 0; rule < ruleCount; rule++) {
+			for (int cell : rules[rule])
+				cellRules[cell][counts[cell]++] = rule;
+		}
+
+		// The peers of a cell are all other cells that share a rule with it
+		peers = new int[size][];
+		int[] seenBy = new int[size];
+		Arrays.fill(seenBy, -1);
+		int[] buffer = new int[size];
+		for (int cell = 0; cell < size; cell++) {
+			int count = 0;
+			seenBy[cell] = cell;
+			for (int rule : cellRules[cell]) {
+				for (int peer : rules[rule]) {
+					if (seenBy[peer] != cell) {
+						seenBy[peer] = cell;
+						buffer[count++] = peer;
+					}
+				}
+			}
+			peers[cell] = Arrays.copyOf(buffer, count);
+			Arrays.sort(peers[cell]);
+		}
+
+		if (constraints.length > 0)
+			buildConstraintIndex();
+
+		ruleOverlaps = new int[ruleCount * ruleCount];
+		for (int cell = 0; cell < size; cell++) {
+			for (int rule : cellRules[cell]) {
+				for (int other : cellRules[cell])
+					ruleOverlaps[rule * ruleCount + other]++;
+			}
+		}
+	}
+
+	private void buildConstraintIndex() {
+		int size = size();
+		constraintCells = new int[constraints.length][];
+		int[] counts = new int[size];
+		for (int constraint = 0; constraint < constraints.length; constraint++) {
+			constraintCells[constraint] = constraints[constraint].getCells();
+			for (int cell : constraintCells[constraint])
+				counts[cell]++;
+		}
+		cellConstraints = new int[size][];
+		for (int cell = 0; cell < size; cell++)
+			cellConstraints[cell] = new int[counts[cell]];
+		Arrays.fill(counts, 0);
+		for (int constraint = 0; constraint < constraints.length; constraint++) {
+			for (int cell : constraintCells[constraint])
+				cellConstraints[cell][counts[cell]++] = constraint;
+		}
+	}
+
+	/**
+	 * @return For each cell, the rules that contain it. Only available once the topology is frozen.
+	 */
+	int[][] cellRules() {
+		return cellRules;
+	}
+
+	/**
+	 * @return For each cell, the other cells that share at least one rule with it. Only available once the topology is frozen.
+	 */
+	int[][] peers() {
+		return peers;
+	}
+
+	/**
+	 * @return The number of cells that rule <code>a</code> and rule <code>b</code> have in common at
+	 * index <code>a * ruleCount + b</code>. Only available once the topology is frozen.
+	 */
+	int[] ruleOverlaps() {
+		return ruleOverlaps;
+	}
+
+	/**
+	 * @return For each cell, the constraints that contain it, or null if there are no constraints besides the rules.
+	 * Only available once the topology is frozen.
+	 */
+	int[][] cellConstraints() {
+		return cellConstraints;
+	}
+
+	/**
+	 * @return For each constraint, the cells it contains, or null if there are no constraints besides the rules.
+	 * Only available once the topology is frozen.
+	 */
+	int[][] constraintCells() {
+		return constraintCells;
+	}
+
+	/**
+	 * @return True if every cell that is not blocked is in at least one rule. Only available once the topology is frozen.
+	 */
+	boolean coversAllCells() {
+		return uncoveredCells == 0;
+	}
+
+	/**
+	 * @return The number of cells in at least one rule. Only available once the topology is frozen.
+	 */
+	int coveredCells() {
+		return coveredCells;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getMaxValue() {
+		return maxValue;
+	}
+
+	/**
+	 * @return The number of cells, including blocked cells
+	 */
+	public int size() {
+		return width * height;
+	}
+
+	int index(int x, int y) {
+		return y * width + x;
+	}
+
+	int x(int cell) {
+		return cell % width;
+	}
+
+	int y(int cell) {
+		return cell / width;
+	}
+
+	public boolean isBlocked(int cell) {
+		return (blocked[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	void block(int cell) {
+		checkMutable();
+		blocked[cell >>> 6] |= 1L << cell;
+	}
+
+	public int getRuleCount() {
+		return ruleCount;
+	}
+
+	int[] rule(int rule) {
+		return rules[rule];
+	}
+
+	String description(int rule) {
+		return descriptions[rule];
+	}
+
+	/**
+	 * @return The number of constraints besides the rules
+	 */
+	public int getConstraintCount() {
+		return constraints.length;
+	}
+
+	Constraint constraint(int constraint) {
+		return constraints[constraint];
+	}
+
+	void addConstraint(Constraint constraint) {
+		checkMutable();
+		for (int cell : constraint.getCells()) {
+			if (cell < 0 || cell >= size())
+				throw new IllegalArgumentException("Tile " + cell + " of " + constraint.getDescription() + " is outside of the board");
+			if (isBlocked(cell))
+				throw new IllegalArgumentException("Tile " + cell + " of " + constraint.getDescription() + " is blocked");
+		}
+		constraints = Arrays.copyOf(constraints, constraints.length + 1);
+		constraints[constraints.length - 1] = constraint;
+	}
+
+	int addRule(String description, int[] cells) {
+		checkMutable();
+		if (cells.length > MAX_RULE_SIZE)
+			throw new IllegalArgumentException("A rule cannot have more than " + MAX_RULE_SIZE + " tiles. Was " + cells.length);
+		if (ruleCount == rules.length) {
+			rules = Arrays.copyOf(rules, ruleCount * 2);
+			descriptions = Arrays.copyOf(descriptions, ruleCount * 2);
+		}
+		rules[ruleCount] = cells;
+		descriptions[ruleCount] = description;
+		return ruleCount++;
+	}
+
+	private void checkMutable() {
+		if (frozen)
+			throw new IllegalStateException("Topology is shared and cannot be modified");
+	}
+
+}
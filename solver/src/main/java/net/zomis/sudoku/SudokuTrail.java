@@ -0,0 +1,39 @@
+package net.zomis.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Records the previous contents of every {@link SudokuGrid} state slot that is overwritten,
+ * so that the grid can be rolled back to an earlier checkpoint instead of being copied.
+ */
+final class SudokuTrail {
+
+	private int[]	slots		= new int[256];
+	private long[]	previous	= new long[256];
+	private int		size;
+
+	int checkpoint() {
+		return size;
+	}
+
+	void record(int slot, long previousValue) {
+		if (size == slots.length) {
+			slots = Arrays.copyOf(slots, size * 2);
+			previous = Arrays.copyOf(previous, size * 2);
+		}
+		slots[size] = slot;
+		previous[size] = previousValue;
+		size++;
+	}
+
+	/**
+	 * Restores every slot changed since <code>checkpoint</code> to the value it had at that point
+	 */
+	void undo(long[] state, int checkpoint) {
+		while (size > checkpoint) {
+			size--;
+			state[slots[size]] = previous[size];
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+package net.zomis.sudoku;
+import java.util.Locale;
+
+/**
+ * The board topologies that can be selected by name, each built once by one of the {@link SudokuFactory} methods
+ */
+public enum SudokuVariant {
+
+	CLASSIC(1) {
+		@Override
+		SudokuBoard build() {
+			return SudokuFactory.buildClassic();
+		}
+	},
+	HYPER(2) {
+		@Override
+		SudokuBoard build() {
+			return SudokuFactory.buildHyper();
+		}
+	},
+	SAMURAI(3) {
+		@Override
+		SudokuBoard build() {
+			return SudokuFactory.buildSamurai();
+		}
+	},
+	SMALL(4) {
+		@Override
+		SudokuBoard build() {
+			return SudokuFactory.sizeAndBoxes(4, 4, 2, 2);
+		}
+	},
+	CLASSIC_16(5) {
+		@Override
+		SudokuBoard build() {
+			return SudokuFactory.sizeAndBoxes(16, 16, 4, 4);
+		}
+	},
+	CLASSIC_25(6) {
+		@Override
+		SudokuBoard build() {
+			return SudokuFactory.sizeAndBoxes(25, 25, 5, 5);
+		}
+	};
+
+	private final int				id;
+	private volatile SudokuTopology	topology;
+
+	private SudokuVariant(int id) {
+		this.id = id;
+	}
+
+	/**
+	 * @return The number that identifies this variant in stored data, which never changes
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return A new empty board with this topology, which is shared with every other board of the variant
+	 */
+	public SudokuBoard create() {
+		return new SudokuBoard(topology());
+	}
+
+	/**
+	 * @return The frozen topology of this variant, which is built the first time it is needed
+	 */
+	public SudokuTopology topology() {
+		SudokuTopology result = topology;
+		if (result == null) {
+			synchronized (this) {
+				result = topology;
+				if (result == null) {
+					result = build().topology();
+					topology = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return A new board with this topology, built from scratch
+	 */
+	abstract SudokuBoard build();
+
+	/**
+	 * @param name The name of a variant, in any case and with '-' in place of '_'
+	 */
+	public static SudokuVariant forName(String name) {
+		return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+	}
+
+	/**
+	 * @throws IllegalArgumentException If no variant has the id
+	 */
+	public static SudokuVariant forId(int id) {
+		for (SudokuVariant variant : values()) {
+			if (variant.id == id)
+				return variant;
+		}
+		throw new IllegalArgumentException("Unknown variant id: " + id);
+	}
+
+}
@@ -0,0 +1,193 @@
+package net.zomis.sudoku;
+import java.util.Arrays;
+
+/**
+ * A cage whose values add up to a given sum, optionally all different as in killer sudoku.
+ * <p>
+ * The lowest and highest candidates of the tiles bound the sum, and each tile is limited to the values that the
+ * bounds of the others leave room for, repeated until the bounds stop changing. When the values are different, the
+ * candidates are first limited to the values that take part in at least one set of different values of the right
+ * size and sum, which for a 2-tile cage summing to 3 leaves only 1 and 2.
+ */
+public final class SumConstraint implements Constraint {
+
+	/** Sets of different values are only enumerated when the tiles left have at most this many candidates between them */
+	private static final int	MAX_COMBINATION_VALUES	= 12;
+
+	private final String	description;
+	private final int		sum;
+	private final boolean	distinct;
+	private final int[]		cells;
+
+	/**
+	 * @param distinct True if every value in the cage must be different
+	 * @param cells The tiles of the cage, by their index <code>y * width + x</code>
+	 */
+	public SumConstraint(int sum, boolean distinct, int... cells) {
+		if (cells.length == 0)
+			throw new IllegalArgumentException("A cage needs at least one tile");
+		this.sum = sum;
+		this.distinct = distinct;
+		this.cells = cells.clone();
+		this.description = "Cage of " + sum + (distinct ? " with different values" : "");
+	}
+
+	public int getSum() {
+		return sum;
+	}
+
+	public boolean isDistinct() {
+		return distinct;
+	}
+
+	@Override
+	public String getDescription() {
+		return description;
+	}
+
+	@Override
+	public int[] getCells() {
+		return cells.clone();
+	}
+
+	@Override
+	public SudokuProgress propagate(SudokuDomains domains) {
+		int remaining = sum;
+		int open = 0;
+		long placed = 0;
+		long union = 0;
+		for (int cell : cells) {
+			int value = domains.value(cell);
+			if (value != SudokuTile.CLEARED) {
+				long mask = SudokuGrid.valueMask(value);
+				if (distinct && (placed & mask) != 0)
+					return SudokuProgress.FAILED;
+				placed |= mask;
+				remaining -= value;
+			}
+			else {
+				open++;
+				union |= domains.candidates(cell);
+			}
+		}
+		if (open == 0)
+			return remaining == 0 ? SudokuProgress.NO_PROGRESS : SudokuProgress.FAILED;
+
+		SudokuProgress result = SudokuProgress.NO_PROGRESS;
+		if (distinct) {
+			long values = union & ~placed;
+			long remove = placed;
+			if (Long.bitCount(values) <= MAX_COMBINATION_VALUES) {
+				long allowed = combinations(values, open, remaining);
+				if (allowed == 0)
+					return SudokuProgress.FAILED;
+				remove |= ~allowed;
+			}
+			for (int cell : cells) {
+				if (domains.value(cell) != SudokuTile.CLEARED || domains.eliminate(cell, remove) == 0)
+					continue;
+				if (domains.candidates(cell) == 0)
+					return SudokuProgress.FAILED;
+				result = SudokuProgress.PROGRESS;
+			}
+		}
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			int low = 0;
+			int high = 0;
+			for (int cell : cells) {
+				if (domains.value(cell) != SudokuTile.CLEARED)
+					continue;
+				long candidates = domains.candidates(cell);
+				if (candidates == 0)
+					return SudokuProgress.FAILED;
+				low += lowest(candidates);
+				high += highest(candidates);
+			}
+			if (low > remaining || high < remaining)
+				return SudokuProgress.FAILED;
+			for (int cell : cells) {
+				if (domains.value(cell) != SudokuTile.CLEARED)
+					continue;
+				long candidates = domains.candidates(cell);
+				int from = remaining - (high - highest(candidates));
+				int to = remaining - (low - lowest(candidates));
+				if (domains.eliminate(cell, ~range(from, to)) == 0)
+					continue;
+				if (domains.candidates(cell) == 0)
+					return SudokuProgress.FAILED;
+				result = SudokuProgress.PROGRESS;
+				changed = true;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean checkValid(SudokuDomains domains) {
+		int total = 0;
+		int open = 0;
+		long placed = 0;
+		for (int cell : cells) {
+			int value = domains.value(cell);
+			if (value == SudokuTile.CLEARED) {
+				open++;
+				continue;
+			}
+			long mask = SudokuGrid.valueMask(value);
+			if (distinct && (placed & mask) != 0)
+				return false;
+			placed |= mask;
+			total += value;
+		}
+		return open == 0 ? total == sum : total + open <= sum && total + open * domains.getMaxValue() >= sum;
+	}
+
+	static int lowest(long candidates) {
+		return Long.numberOfTrailingZeros(candidates) + 1;
+	}
+
+	static int highest(long candidates) {
+		return Long.SIZE - Long.numberOfLeadingZeros(candidates);
+	}
+
+	/**
+	 * @return A mask of the values from <code>from</code> to <code>to</code>, which is empty if there are none
+	 */
+	static long range(int from, int to) {
+		from = Math.max(from, 1);
+		to = Math.min(to, Long.SIZE);
+		if (from > to)
+			return 0;
+		return SudokuGrid.allValuesMask(to) & ~SudokuGrid.allValuesMask(from - 1);
+	}
+
+	/**
+	 * @return The values that are in at least one set of <code>count</code> different values among <code>values</code>
+	 * that adds up to <code>target</code>
+	 */
+	static long combinations(long values, int count, int target) {
+		if (count == 1)
+			return target >= 1 && target <= Long.SIZE ? values & SudokuGrid.valueMask(target) : 0;
+		long result = 0;
+		for (long rest = values; rest != 0; ) {
+			int value = lowest(rest);
+			rest &= rest - 1;
+			// The smallest values left are too large already
+			if (value * count > target)
+				break;
+			long others = combinations(rest, count - 1, target - value);
+			if (others != 0)
+				result |= others | SudokuGrid.valueMask(value);
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return description + " " + Arrays.toString(cells);
+	}
+
+}
@@ -0,0 +1,80 @@
+package net.zomis.sudoku;
+
+/**
+ * Tiles with candidates and values in arrays, for testing a {@link Constraint} on its own. Just as on a board,
+ * removing all but one candidate of a tile does not give it a value.
+ */
+class ArrayDomains implements SudokuDomains {
+
+	private final int		maxValue;
+	private final long[]	candidates;
+	private final int[]		values;
+
+	ArrayDomains(int maxValue, long... candidates) {
+		this.maxValue = maxValue;
+		this.candidates = candidates.clone();
+		this.values = new int[candidates.length];
+	}
+
+	ArrayDomains(ArrayDomains copy) {
+		this.maxValue = copy.maxValue;
+		this.candidates = copy.candidates.clone();
+		this.values = copy.values.clone();
+	}
+
+	ArrayDomains place(int cell, int value) {
+		values[cell] = value;
+		candidates[cell] = SudokuGrid.valueMask(value);
+		return this;
+	}
+
+	int size() {
+		return candidates.length;
+	}
+
+	@Override
+	public int getMaxValue() {
+		return maxValue;
+	}
+
+	@Override
+	public int value(int cell) {
+		return values[cell];
+	}
+
+	@Override
+	public long candidates(int cell) {
+		return candidates[cell];
+	}
+
+	@Override
+	public long eliminate(int cell, long mask) {
+		long removed = candidates[cell] & mask;
+		candidates[cell] &= ~mask;
+		return removed;
+	}
+
+	/**
+	 * @return For each tile, the candidates that are part of at least one assignment that the constraint accepts
+	 */
+	long[] supported(Constraint constraint) {
+		long[] supported = new long[candidates.length];
+		supported(constraint, new ArrayDomains(this), 0, supported);
+		return supported;
+	}
+
+	private void supported(Constraint constraint, ArrayDomains assignment, int cell, long[] supported) {
+		if (cell == candidates.length) {
+			if (constraint.checkValid(assignment)) {
+				for (int i = 0; i < supported.length; i++)
+					supported[i] |= assignment.candidates[i];
+			}
+			return;
+		}
+		for (long bits = candidates[cell]; bits != 0; bits &= bits - 1) {
+			assignment.place(cell, SudokuGrid.singleValue(bits));
+			supported(constraint, assignment, cell + 1, supported);
+		}
+	}
+
+}
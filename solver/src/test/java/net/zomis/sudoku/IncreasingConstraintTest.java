@@ -0,0 +1,45 @@
+package net.zomis.sudoku;
+import static net.zomis.sudoku.SumConstraintTest.assertBoard;
+import static net.zomis.sudoku.SumConstraintTest.assertSound;
+import static net.zomis.sudoku.SumConstraintTest.randomDomains;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IncreasingConstraintTest {
+
+	@Test
+	public void exactAgainstBruteForce() {
+		Random random = new Random(10);
+		for (int i = 0; i < 2000; i++) {
+			int size = 2 + random.nextInt(3);
+			int[] cells = new int[size];
+			for (int cell = 0; cell < size; cell++)
+				cells[cell] = cell;
+			IncreasingConstraint chain = new IncreasingConstraint(cells);
+			ArrayDomains domains = randomDomains(random, size);
+			long[] supported = domains.supported(chain);
+			long[] after = assertSound(chain, domains);
+			if (after != null)
+				assertArrayEquals(chain.toString(), supported, after);
+		}
+	}
+
+	@Test
+	public void chainLongerThanTheValues() {
+		long all = SudokuGrid.allValuesMask(3);
+		assertNull(assertSound(new IncreasingConstraint(0, 1, 2, 3), new ArrayDomains(3, all, all, all, all)));
+	}
+
+	@Test
+	public void thermometer() {
+		// (0, 3), (1, 2) and (2, 1): a diagonal through three boxes
+		assertBoard(new IncreasingConstraint(12, 9, 6), board -> board.grid().value(12) < board.grid().value(9)
+				&& board.grid().value(9) < board.grid().value(6));
+		assertBoard(new IncreasingConstraint(0, 15), board -> board.grid().value(0) < board.grid().value(15));
+	}
+
+}
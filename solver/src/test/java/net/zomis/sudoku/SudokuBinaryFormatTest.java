@@ -0,0 +1,126 @@
+package net.zomis.sudoku;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SudokuBinaryFormatTest {
+
+	static SudokuBoard randomBoard(SudokuVariant variant, Random random) {
+		return fill(variant.create(), random);
+	}
+
+	/**
+	 * Sets random values, including empty tiles and the largest value, on every tile that is not blocked
+	 */
+	static SudokuBoard fill(SudokuBoard board, Random random) {
+		SudokuTopology topology = board.topology();
+		for (int cell = 0; cell < topology.size(); cell++) {
+			if (!topology.isBlocked(cell))
+				board.setValue(cell, random.nextInt(topology.getMaxValue() + 1));
+		}
+		return board;
+	}
+
+	static void assertSameBoard(SudokuBoard expected, SudokuBoard actual) {
+		SudokuTopology topology = expected.topology();
+		assertEquals(topology.getWidth(), actual.getWidth());
+		assertEquals(topology.getHeight(), actual.getHeight());
+		for (int cell = 0; cell < topology.size(); cell++) {
+			assertEquals("Blocked tile " + cell, topology.isBlocked(cell), actual.topology().isBlocked(cell));
+			if (!topology.isBlocked(cell))
+				assertEquals("Value of tile " + cell, expected.grid().value(cell), actual.grid().value(cell));
+		}
+	}
+
+	@Test
+	public void classicRecordSize() {
+		assertEquals(43, SudokuBinaryFormat.recordSize(SudokuVariant.CLASSIC));
+	}
+
+	@Test
+	public void roundTripEveryVariant() {
+		Random random = new Random(42);
+		for (SudokuVariant variant : SudokuVariant.values()) {
+			for (int i = 0; i < 20; i++) {
+				SudokuBoard board = randomBoard(variant, random);
+				ByteBuffer buffer = ByteBuffer.allocate(SudokuBinaryFormat.recordSize(variant));
+				SudokuBinaryFormat.write(variant, board, buffer);
+				assertEquals(variant.toString(), SudokuBinaryFormat.recordSize(variant), buffer.position());
+
+				buffer.flip();
+				assertSame(variant, SudokuBinaryFormat.variant(buffer, 0));
+				SudokuBoard read = SudokuBinaryFormat.read(buffer);
+				assertEquals(buffer.limit(), buffer.position());
+				assertSameBoard(board, read);
+			}
+		}
+	}
+
+	@Test
+	public void roundTripAtIndex() {
+		Random random = new Random(7);
+		int size = SudokuBinaryFormat.recordSize(SudokuVariant.CLASSIC_16);
+		ByteBuffer buffer = ByteBuffer.allocate(3 * size);
+		SudokuBoard[] boards = new SudokuBoard[3];
+		for (int i = 0; i < boards.length; i++) {
+			boards[i] = randomBoard(SudokuVariant.CLASSIC_16, random);
+			assertEquals((i + 1) * size, SudokuBinaryFormat.write(SudokuVariant.CLASSIC_16, boards[i], buffer, i * size));
+		}
+		assertEquals(0, buffer.position());
+		for (int i = boards.length - 1; i >= 0; i--)
+			assertSameBoard(boards[i], SudokuBinaryFormat.read(buffer, i * size));
+	}
+
+	@Test
+	public void roundTripExtraBlockedTiles() {
+		Random random = new Random(3);
+		for (SudokuVariant variant : new SudokuVariant[] { SudokuVariant.CLASSIC, SudokuVariant.SAMURAI }) {
+			SudokuBoard board = variant.create();
+			int blocked = 0;
+			while (blocked < 5) {
+				int cell = random.nextInt(board.getCellCount());
+				if (!board.topology().isBlocked(cell)) {
+					board.block(cell);
+					blocked++;
+				}
+			}
+			fill(board, random);
+			int size = SudokuBinaryFormat.size(variant, board);
+			assertTrue(size > SudokuBinaryFormat.recordSize(variant));
+
+			ByteBuffer buffer = ByteBuffer.allocate(size);
+			SudokuBinaryFormat.write(variant, board, buffer);
+			assertEquals(size, buffer.position());
+			buffer.flip();
+			assertSameBoard(board, SudokuBinaryFormat.read(buffer));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsOtherRules() {
+		SudokuBoard jigsaw = SudokuFactory.ClassicWithSpecialBoxes(new String[] {
+				"111222333", "111222333", "111222333",
+				"444555666", "444555666", "444555666",
+				"777888999", "777888999", "778888999" });
+		SudokuBinaryFormat.write(SudokuVariant.CLASSIC, jigsaw, ByteBuffer.allocate(100));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsOtherSize() {
+		SudokuBinaryFormat.write(SudokuVariant.CLASSIC, SudokuVariant.SMALL.create(), ByteBuffer.allocate(100));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsConstraints() {
+		SudokuBoard board = SudokuVariant.CLASSIC.create();
+		board.createCage(3, Arrays.asList(board.tile(0, 0), board.tile(1, 0)));
+		SudokuBinaryFormat.write(SudokuVariant.CLASSIC, board, ByteBuffer.allocate(100));
+	}
+
+}
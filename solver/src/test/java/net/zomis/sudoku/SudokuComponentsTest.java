@@ -0,0 +1,120 @@
+package net.zomis.sudoku;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class SudokuComponentsTest {
+
+	/**
+	 * Two 4x4 grids on a 6x6 board, overlapping in one box like the grids of a samurai board
+	 */
+	private static SudokuBoard twins() {
+		SudokuBoard board = new SudokuBoard(6, 6, 4);
+		for (int y = 0; y < 2; y++) {
+			for (int x = 0; x < 2; x++) {
+				board.tile(4 + x, y).block();
+				board.tile(x, 4 + y).block();
+			}
+		}
+		for (int grid = 0; grid < 2; grid++) {
+			int offset = grid * 2;
+			for (int i = 0; i < 4; i++) {
+				List<SudokuTile> row = new ArrayList<>();
+				List<SudokuTile> column = new ArrayList<>();
+				List<SudokuTile> box = new ArrayList<>();
+				for (int j = 0; j < 4; j++) {
+					row.add(board.tile(offset + j, offset + i));
+					column.add(board.tile(offset + i, offset + j));
+					box.add(board.tile(offset + i % 2 * 2 + j % 2, offset + i / 2 * 2 + j / 2));
+				}
+				board.createRule("Row " + grid + " " + i, row);
+				board.createRule("Column " + grid + " " + i, column);
+				// The shared box is the last box of the first grid and the first box of the second
+				if (grid == 0 || i > 0)
+					board.createRule("Box " + grid + " " + i, box);
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * @return The number of solutions found by one search of the whole board, without splitting it
+	 */
+	private static long plainCount(SudokuBoard board) {
+		SudokuBoard copy = new SudokuBoard(board);
+		long[] count = new long[1];
+		copy.search(SudokuEngine.BACKTRACKING, grid -> {
+			count[0]++;
+			return true;
+		});
+		return count[0];
+	}
+
+	private static void assertCount(SudokuBoard board, long expected) {
+		assertEquals(expected, plainCount(board));
+		assertEquals(expected, board.countSolutions(Long.MAX_VALUE));
+		assertEquals(expected, new SudokuParallelSolver(ForkJoinPool.commonPool(), 4, false).countSolutions(board, Long.MAX_VALUE));
+	}
+
+	/**
+	 * Each of the 24 fillings of the shared box leaves 12 solutions of each grid
+	 */
+	@Test
+	public void twinGrids() {
+		assertCount(twins(), 24 * 12 * 12);
+	}
+
+	@Test
+	public void stopsAtTheLimit() {
+		assertEquals(100, twins().countSolutions(100));
+		assertEquals(0, twins().countSolutions(0));
+	}
+
+	/**
+	 * Clears the outermost rows of some of the corner grids of a solved samurai board
+	 */
+	private static SudokuBoard samurai(SudokuBoard solution, int rows, int... corners) {
+		SudokuBoard board = new SudokuBoard(solution);
+		for (int corner : corners) {
+			int left = corner % 2 * 12;
+			for (int row = 0; row < rows; row++) {
+				int y = corner < 2 ? row : board.getHeight() - 1 - row;
+				for (int x = left; x < left + 9; x++)
+					board.setValue(board.topology().index(x, y), SudokuTile.CLEARED);
+			}
+		}
+		return board;
+	}
+
+	@Test
+	public void samuraiOuterGrids() {
+		SudokuBoard solution = SudokuSolver.samurai().solve().iterator().next();
+		assertCount(samurai(solution, 2, 0, 1, 2, 3), 128);
+	}
+
+	/**
+	 * With three rows cleared the board has too many solutions to search at once, but each corner grid can be
+	 * searched on its own
+	 */
+	@Test
+	public void samuraiCountIsTheProductOfTheGrids() {
+		SudokuBoard solution = SudokuSolver.samurai().solve().iterator().next();
+		long product = 1;
+		for (int corner = 0; corner < 4; corner++) {
+			SudokuBoard board = samurai(solution, 3, corner);
+			long count = plainCount(board);
+			assertTrue(count > 1);
+			assertEquals(count, board.countSolutions(Long.MAX_VALUE));
+			product *= count;
+		}
+		SudokuBoard board = samurai(solution, 3, 0, 1, 2, 3);
+		assertEquals(product, board.countSolutions(Long.MAX_VALUE));
+		assertEquals(product, new SudokuParallelSolver(ForkJoinPool.commonPool(), 4, false).countSolutions(board, Long.MAX_VALUE));
+	}
+
+}
@@ -0,0 +1,143 @@
+package net.zomis.sudoku;
+import static net.zomis.sudoku.SudokuBinaryFormatTest.assertSameBoard;
+import static net.zomis.sudoku.SudokuBinaryFormatTest.fill;
+import static net.zomis.sudoku.SudokuBinaryFormatTest.randomBoard;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SudokuCorpusTest {
+
+	/** Chunks of 1 KB, so that records and index entries cross chunk boundaries */
+	private static final int	SMALL_CHUNKS	= 10;
+
+	@Rule
+	public TemporaryFolder		folder			= new TemporaryFolder();
+
+	private List<SudokuBoard> write(Path file, SudokuVariant variant, boolean indexed, int count, Random random)
+			throws IOException {
+		List<SudokuBoard> boards = new ArrayList<>(count);
+		try (SudokuCorpus.Writer writer = SudokuCorpus.create(file, variant, indexed)) {
+			for (int i = 0; i < count; i++) {
+				SudokuBoard board = variant.create();
+				if (indexed && i % 3 == 0)
+					board.block(random.nextInt(board.getCellCount()));
+				board = fill(board, random);
+				writer.add(board);
+				boards.add(board);
+			}
+			assertEquals(count, writer.getCount());
+		}
+		return boards;
+	}
+
+	private static void assertCorpus(List<SudokuBoard> boards, SudokuCorpus corpus) {
+		assertEquals(boards.size(), corpus.size());
+		for (int i = 0; i < boards.size(); i++)
+			assertSameBoard(boards.get(i), corpus.get(i));
+	}
+
+	@Test
+	public void fixedStride() throws IOException {
+		Path file = folder.newFile().toPath();
+		List<SudokuBoard> boards = write(file, SudokuVariant.CLASSIC, false, 500, new Random(1));
+		assertEquals(SudokuCorpus.HEADER_SIZE + 500 * SudokuBinaryFormat.recordSize(SudokuVariant.CLASSIC), Files.size(file));
+
+		SudokuCorpus corpus = SudokuCorpus.open(file);
+		assertSame(SudokuVariant.CLASSIC, corpus.getVariant());
+		assertFalse(corpus.isIndexed());
+		assertCorpus(boards, corpus);
+	}
+
+	@Test
+	public void indexedWithExtraBlockedTiles() throws IOException {
+		for (SudokuVariant variant : new SudokuVariant[] { SudokuVariant.CLASSIC, SudokuVariant.SAMURAI }) {
+			Path file = folder.newFile().toPath();
+			List<SudokuBoard> boards = write(file, variant, true, 300, new Random(2));
+			SudokuCorpus corpus = SudokuCorpus.open(file);
+			assertTrue(corpus.isIndexed());
+			assertCorpus(boards, corpus);
+		}
+	}
+
+	@Test
+	public void everyVariantAcrossChunkBoundaries() throws IOException {
+		Random random = new Random(3);
+		for (SudokuVariant variant : SudokuVariant.values()) {
+			for (boolean indexed : new boolean[] { false, true }) {
+				Path file = folder.newFile().toPath();
+				List<SudokuBoard> boards = write(file, variant, indexed, 200, random);
+				assertTrue(Files.size(file) > 1 << SMALL_CHUNKS);
+				SudokuCorpus corpus = SudokuCorpus.open(file, SMALL_CHUNKS);
+				assertEquals(indexed, corpus.isIndexed());
+				assertCorpus(boards, corpus);
+			}
+		}
+	}
+
+	@Test
+	public void randomAccess() throws IOException {
+		Path file = folder.newFile().toPath();
+		Random random = new Random(4);
+		List<SudokuBoard> boards = write(file, SudokuVariant.CLASSIC_16, true, 400, random);
+		SudokuCorpus corpus = SudokuCorpus.open(file, SMALL_CHUNKS);
+		for (int i = 0; i < 1000; i++) {
+			int puzzle = random.nextInt(boards.size());
+			assertSameBoard(boards.get(puzzle), corpus.get(puzzle));
+		}
+	}
+
+	@Test
+	public void shardsCoverEveryPuzzleOnce() throws IOException {
+		Path file = folder.newFile().toPath();
+		List<SudokuBoard> boards = write(file, SudokuVariant.CLASSIC, false, 101, new Random(5));
+		SudokuCorpus corpus = SudokuCorpus.open(file);
+		long next = 0;
+		for (int shard = 0; shard < 7; shard++) {
+			SudokuCorpus.Range range = corpus.shard(shard, 7);
+			assertEquals(next, range.getStart());
+			assertTrue(range.size() == 14 || range.size() == 15);
+			for (SudokuBoard board : range)
+				assertSameBoard(boards.get((int) next++), board);
+			assertEquals(range.getEnd(), next);
+		}
+		assertEquals(boards.size(), next);
+		assertEquals(boards.size(), corpus.stream().parallel().count());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void fixedStrideRejectsExtraBlockedTiles() throws IOException {
+		try (SudokuCorpus.Writer writer = SudokuCorpus.create(folder.newFile().toPath(), SudokuVariant.CLASSIC, false)) {
+			SudokuBoard board = randomBoard(SudokuVariant.CLASSIC, new Random(6));
+			board.block(0);
+			writer.add(board);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherFiles() throws IOException {
+		Path file = folder.newFile().toPath();
+		Files.write(file, new byte[SudokuCorpus.HEADER_SIZE * 2]);
+		SudokuCorpus.open(file);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void rejectsPuzzlesPastTheEnd() throws IOException {
+		Path file = folder.newFile().toPath();
+		write(file, SudokuVariant.CLASSIC, false, 10, new Random(7));
+		SudokuCorpus.open(file).get(10);
+	}
+
+}
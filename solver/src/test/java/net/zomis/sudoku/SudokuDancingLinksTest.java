@@ -0,0 +1,63 @@
+package net.zomis.sudoku;
+import static net.zomis.sudoku.SudokuSatTest.solutions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SudokuDancingLinksTest {
+
+	private static void assertSameSolutions(SudokuBoard board, int expected) {
+		Set<String> solutions = solutions(board, SudokuEngine.DANCING_LINKS);
+		assertEquals(expected, solutions.size());
+		assertEquals(solutions(board, SudokuEngine.BACKTRACKING), solutions);
+	}
+
+	@Test
+	public void unsatisfiableBoardHasNoSolution() {
+		assertSameSolutions(SudokuSolver.fail(), 0);
+	}
+
+	@Test
+	public void everySolutionIsFound() {
+		assertSameSolutions(SudokuSolver.small(), 1);
+		assertSameSolutions(SudokuFactory.sizeAndBoxes(4, 4, 2, 2), 288);
+		SudokuBoard incomplete = SudokuSolver.incompleteClassic();
+		Set<String> solutions = solutions(incomplete, SudokuEngine.DANCING_LINKS);
+		assertTrue(solutions.size() > 1);
+		assertEquals(solutions(incomplete, SudokuEngine.BACKTRACKING), solutions);
+	}
+
+	@Test
+	public void uniquePuzzles() {
+		for (SudokuBoard board : Arrays.asList(SudokuSolver.classic(), SudokuSolver.hard(), SudokuSolver.hyper(),
+				SudokuSolver.extraZones()))
+			assertSameSolutions(board, 1);
+	}
+
+	/**
+	 * The blocked tiles between the grids have no column and are left blocked in the solution
+	 */
+	@Test
+	public void samuraiBlockedTiles() {
+		SudokuBoard board = SudokuSolver.samurai();
+		assertSameSolutions(board, 1);
+		String solution = solutions(board, SudokuEngine.DANCING_LINKS).iterator().next();
+		int blocked = 0;
+		for (String value : solution.split(","))
+			blocked += value.equals("/") ? 1 : 0;
+		assertEquals(board.getCellCount() - 369, blocked);
+	}
+
+	@Test
+	public void stopsAtTheSolutionLimit() {
+		SolveResult result = SudokuFactory.sizeAndBoxes(4, 4, 2, 2)
+				.solve(new SolveOptions().setEngine(SudokuEngine.DANCING_LINKS).setSolutionLimit(5));
+		assertEquals(5, result.getSolutions().size());
+		assertEquals(SolveResult.Status.SOLUTION_LIMIT, result.getStatus());
+	}
+
+}
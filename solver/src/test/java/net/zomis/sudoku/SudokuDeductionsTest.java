@@ -0,0 +1,78 @@
+package net.zomis.sudoku;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class SudokuDeductionsTest {
+
+	private static final long	ONE	= SudokuGrid.valueMask(1);
+
+	private static SudokuGrid emptyGrid() {
+		SudokuGrid grid = SudokuVariant.CLASSIC.create().grid();
+		grid.resetCandidates();
+		return grid;
+	}
+
+	/**
+	 * Removes the value 1 from every tile of a row except the given columns
+	 */
+	private static void onlyIn(SudokuGrid grid, int row, int... columns) {
+		for (int x = 0; x < 9; x++)
+			grid.eliminate(grid.topology.index(x, row), ONE);
+		for (int x : columns)
+			grid.resetCandidates(grid.topology.index(x, row));
+	}
+
+	private static long candidates(SudokuGrid grid, int x, int y) {
+		return grid.candidates(grid.topology.index(x, y)) & ONE;
+	}
+
+	@Test
+	public void xWingEliminatesFromCoverRules() {
+		SudokuGrid grid = emptyGrid();
+		onlyIn(grid, 0, 0, 4);
+		onlyIn(grid, 4, 0, 4);
+		assertEquals(SudokuProgress.PROGRESS, new SudokuDeductions(grid).apply(SudokuTechnique.X_WING.mask()));
+		assertEquals(14, grid.stats().eliminations[SudokuTechnique.X_WING.ordinal()]);
+		for (int y = 0; y < 9; y++) {
+			long expected = y == 0 || y == 4 ? ONE : 0;
+			assertEquals("Column 0, row " + y, expected, candidates(grid, 0, y));
+			assertEquals("Column 4, row " + y, expected, candidates(grid, 4, y));
+			assertEquals("Column 2, row " + y, y == 0 || y == 4 ? 0 : ONE, candidates(grid, 2, y));
+		}
+	}
+
+	private static void assertOnlyLockedCandidates(SudokuGrid grid) {
+		assertEquals(SudokuProgress.NO_PROGRESS, new SudokuDeductions(grid).apply(SudokuTechnique.X_WING.mask()));
+		assertEquals(0, grid.stats().eliminations[SudokuTechnique.X_WING.ordinal()]);
+		assertEquals(SudokuProgress.PROGRESS, new SudokuDeductions(grid).apply(SudokuTechnique.LOCKED_CANDIDATES.mask()));
+		assertNotEquals(0, grid.stats().eliminations[SudokuTechnique.LOCKED_CANDIDATES.ordinal()]);
+	}
+
+	/**
+	 * Each row's possible tiles are within a different box, which is two separate locked candidates and not an X-wing
+	 */
+	@Test
+	public void xWingIgnoresRowsWithinBoxes() {
+		SudokuGrid grid = emptyGrid();
+		onlyIn(grid, 0, 0, 1);
+		onlyIn(grid, 3, 3, 4);
+		assertOnlyLockedCandidates(grid);
+	}
+
+	/**
+	 * The top left box can only have the value in the first row, so the other two boxes of the band have it in the
+	 * other two rows, which looks like an X-wing of two rows and two boxes
+	 */
+	@Test
+	public void xWingIgnoresPointingBoxes() {
+		SudokuGrid grid = emptyGrid();
+		for (int y = 1; y < 3; y++) {
+			for (int x = 0; x < 3; x++)
+				grid.eliminate(grid.topology.index(x, y), ONE);
+		}
+		assertOnlyLockedCandidates(grid);
+	}
+
+}
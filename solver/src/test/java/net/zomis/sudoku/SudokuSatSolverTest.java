@@ -0,0 +1,146 @@
+package net.zomis.sudoku;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SudokuSatSolverTest {
+
+	private static final SudokuSolutionVisitor	NEVER_CANCELLED	= grid -> true;
+
+	private static int[][] randomClauses(Random random, int variables, int count) {
+		int[][] clauses = new int[count][3];
+		for (int[] clause : clauses) {
+			for (int i = 0; i < clause.length; i++) {
+				int variable = random.nextInt(variables);
+				clause[i] = random.nextBoolean() ? SudokuSatSolver.positive(variable) : SudokuSatSolver.negative(variable);
+			}
+		}
+		return clauses;
+	}
+
+	private static boolean satisfies(int[][] clauses, int model) {
+		for (int[] clause : clauses) {
+			boolean satisfied = false;
+			for (int literal : clause)
+				satisfied |= ((model >> (literal >> 1) & 1) == 0) == ((literal & 1) == 1);
+			if (!satisfied)
+				return false;
+		}
+		return true;
+	}
+
+	private static SudokuSatSolver solver(int variables, int[][] clauses) {
+		SudokuSatSolver solver = new SudokuSatSolver();
+		for (int i = 0; i < variables; i++)
+			solver.newVariable();
+		for (int[] clause : clauses)
+			solver.addClause(clause);
+		return solver;
+	}
+
+	/**
+	 * @return The assignment of the last model found, one bit per variable
+	 */
+	private static int model(SudokuSatSolver solver, int variables) {
+		int model = 0;
+		for (int variable = 0; variable < variables; variable++) {
+			if (solver.isTrue(variable))
+				model |= 1 << variable;
+		}
+		return model;
+	}
+
+	/**
+	 * Finds every model of random formulas around the satisfiability threshold, excluding each model once found,
+	 * and compares their number with trying every assignment
+	 */
+	@Test
+	public void everyModelOfRandomFormulas() {
+		Random random = new Random(11);
+		int variables = 12;
+		for (int formula = 0; formula < 200; formula++) {
+			int[][] clauses = randomClauses(random, variables, 40 + random.nextInt(20));
+			int expected = 0;
+			for (int model = 0; model < 1 << variables; model++) {
+				if (satisfies(clauses, model))
+					expected++;
+			}
+
+			SudokuSatSolver solver = solver(variables, clauses);
+			int found = 0;
+			while (solver.solve(NEVER_CANCELLED) == SudokuSatSolver.SATISFIABLE) {
+				int model = model(solver, variables);
+				assertTrue("Formula " + formula + " has no model " + model, satisfies(clauses, model));
+				found++;
+				int[] blocking = new int[variables];
+				for (int variable = 0; variable < variables; variable++)
+					blocking[variable] = solver.isTrue(variable) ? SudokuSatSolver.negative(variable) : SudokuSatSolver.positive(variable);
+				solver.addClause(blocking);
+			}
+			assertEquals("Formula " + formula, expected, found);
+		}
+	}
+
+	/**
+	 * Seven pigeons can not each have one of six holes on their own, which takes many conflicts to prove,
+	 * and which stays proven when solving again
+	 */
+	@Test
+	public void pigeonholeIsUnsatisfiable() {
+		int pigeons = 7;
+		int holes = 6;
+		SudokuSatSolver solver = new SudokuSatSolver();
+		for (int i = 0; i < pigeons * holes; i++)
+			solver.newVariable();
+		for (int pigeon = 0; pigeon < pigeons; pigeon++) {
+			int[] clause = new int[holes];
+			for (int hole = 0; hole < holes; hole++)
+				clause[hole] = SudokuSatSolver.positive(pigeon * holes + hole);
+			solver.addClause(clause);
+		}
+		for (int hole = 0; hole < holes; hole++) {
+			for (int a = 0; a < pigeons; a++) {
+				for (int b = a + 1; b < pigeons; b++)
+					solver.addClause(SudokuSatSolver.negative(a * holes + hole), SudokuSatSolver.negative(b * holes + hole));
+			}
+		}
+		assertEquals(SudokuSatSolver.UNSATISFIABLE, solver.solve(NEVER_CANCELLED));
+		assertEquals(SudokuSatSolver.UNSATISFIABLE, solver.solve(NEVER_CANCELLED));
+	}
+
+	@Test
+	public void emptyClauseIsUnsatisfiable() {
+		SudokuSatSolver solver = solver(1, new int[][] { { SudokuSatSolver.positive(0) } });
+		solver.addClause(SudokuSatSolver.negative(0));
+		assertEquals(SudokuSatSolver.UNSATISFIABLE, solver.solve(NEVER_CANCELLED));
+	}
+
+	@Test
+	public void cancelledAtTheFirstDecision() {
+		SudokuSatSolver solver = solver(2, new int[][] { { SudokuSatSolver.positive(0), SudokuSatSolver.positive(1) } });
+		SudokuSolutionVisitor cancelled = new SudokuSolutionVisitor() {
+			@Override
+			public boolean solution(SudokuGrid grid) {
+				return true;
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return true;
+			}
+		};
+		assertEquals(SudokuSatSolver.CANCELLED, solver.solve(cancelled));
+		assertEquals(SudokuSatSolver.SATISFIABLE, solver.solve(NEVER_CANCELLED));
+	}
+
+	@Test
+	public void lubySequence() {
+		long[] expected = { 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8 };
+		for (int i = 0; i < expected.length; i++)
+			assertEquals(expected[i], SudokuSatSolver.luby(i));
+	}
+
+}
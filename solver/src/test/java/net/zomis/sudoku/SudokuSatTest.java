@@ -0,0 +1,113 @@
+package net.zomis.sudoku;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class SudokuSatTest {
+
+	/**
+	 * @return The values of every tile, with '/' for blocked tiles
+	 */
+	static String cells(SudokuBoard board) {
+		SudokuTopology topology = board.topology();
+		StringBuilder text = new StringBuilder();
+		for (int cell = 0; cell < topology.size(); cell++) {
+			if (topology.isBlocked(cell))
+				text.append('/');
+			else text.append(board.grid().value(cell));
+			text.append(',');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Solves a copy of the board, checking that every solution is complete
+	 */
+	static Set<String> solutions(SudokuBoard board, SudokuEngine engine) {
+		Set<String> solutions = new HashSet<>();
+		for (SudokuBoard solution : new SudokuBoard(board).solve(engine)) {
+			assertTrue(engine + " solution is not complete", solution.isComplete());
+			assertTrue(engine + " found a solution twice", solutions.add(cells(solution)));
+		}
+		return solutions;
+	}
+
+	private static void assertSameSolutions(SudokuBoard board) {
+		Set<String> expected = solutions(board, SudokuEngine.BACKTRACKING);
+		assertEquals(expected, solutions(board, SudokuEngine.SAT));
+	}
+
+	@Test
+	public void uniquePuzzlesMatchPropagation() {
+		for (SudokuBoard board : Arrays.asList(SudokuSolver.classic(), SudokuSolver.hard(), SudokuSolver.hyper(),
+				SudokuSolver.extraZones(), SudokuSolver.samurai())) {
+			Set<String> solutions = solutions(board, SudokuEngine.SAT);
+			assertEquals(1, solutions.size());
+			assertEquals(solutions(board, SudokuEngine.BACKTRACKING), solutions);
+		}
+	}
+
+	@Test
+	public void everySolutionIsFound() {
+		assertSameSolutions(SudokuSolver.small());
+		assertSameSolutions(SudokuSolver.incompleteClassic());
+	}
+
+	@Test
+	public void unsatisfiableBoardHasNoSolution() {
+		assertEquals(0, solutions(SudokuSolver.fail(), SudokuEngine.SAT).size());
+	}
+
+	/**
+	 * Three tiles that are pairwise in rules with two values. Propagation finds nothing, so the SAT solver has to
+	 * prove that there is no solution.
+	 */
+	@Test
+	public void unsatisfiableAfterPropagation() {
+		SudokuBoard board = new SudokuBoard(3, 1, 2);
+		board.createRule("AB", Arrays.asList(board.tile(0, 0), board.tile(1, 0)));
+		board.createRule("BC", Arrays.asList(board.tile(1, 0), board.tile(2, 0)));
+		board.createRule("AC", Arrays.asList(board.tile(0, 0), board.tile(2, 0)));
+		SudokuBoard copy = new SudokuBoard(board);
+		copy.resetSolutions();
+		assertEquals(SudokuProgress.NO_PROGRESS, copy.simplify());
+		assertEquals(0, solutions(board, SudokuEngine.SAT).size());
+		assertEquals(0, solutions(board, SudokuEngine.BACKTRACKING).size());
+	}
+
+	/**
+	 * An empty 4x4 board with both diagonals as extra rules
+	 */
+	@Test
+	public void customRules() {
+		SudokuBoard board = SudokuFactory.sizeAndBoxes(4, 4, 2, 2);
+		board.createRule("Diagonal", IntStream.range(0, 4).mapToObj(i -> board.tile(i, i)));
+		board.createRule("Anti-diagonal", IntStream.range(0, 4).mapToObj(i -> board.tile(3 - i, i)));
+		Set<String> solutions = solutions(board, SudokuEngine.SAT);
+		assertTrue(solutions.size() > 1);
+		assertEquals(solutions(board, SudokuEngine.BACKTRACKING), solutions);
+	}
+
+	/**
+	 * A rule of two tiles on a board of three values has to contain the values 1 and 2, so there are as many solutions
+	 * as for two values
+	 */
+	@Test
+	public void rulesSmallerThanTheValues() {
+		SudokuBoard board = new SudokuBoard(2, 2, 3);
+		board.createRule("Top", Arrays.asList(board.tile(0, 0), board.tile(1, 0)));
+		board.createRule("Bottom", Arrays.asList(board.tile(0, 1), board.tile(1, 1)));
+		board.createRule("Left", Arrays.asList(board.tile(0, 0), board.tile(0, 1)));
+		board.createRule("Right", Arrays.asList(board.tile(1, 0), board.tile(1, 1)));
+		Set<String> solutions = solutions(board, SudokuEngine.SAT);
+		assertEquals(solutions(board, SudokuEngine.BACKTRACKING), solutions);
+		assertEquals(2, solutions.size());
+	}
+
+}
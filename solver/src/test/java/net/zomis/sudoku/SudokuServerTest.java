@@ -0,0 +1,93 @@
+package net.zomis.sudoku;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SudokuServerTest {
+
+	private static final String	PUZZLE	= "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..\n";
+
+	private ExecutorService	executor;
+	private SudokuServer	server;
+
+	@Before
+	public void start() throws IOException {
+		executor = Executors.newCachedThreadPool();
+		server = new SudokuServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), executor, 1, 5000);
+		server.start();
+	}
+
+	@After
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private int post(String query, String body, StringBuilder answer) throws IOException {
+		URL url = new URL("http://127.0.0.1:" + server.getPort() + "/solve" + query);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try (OutputStream output = connection.getOutputStream()) {
+			output.write(body.getBytes(StandardCharsets.US_ASCII));
+		}
+		int status = connection.getResponseCode();
+		try (InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = input.read(buffer)) >= 0)
+				bytes.write(buffer, 0, read);
+			answer.append(new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+		}
+		return status;
+	}
+
+	@Test
+	public void solves() throws IOException {
+		StringBuilder answer = new StringBuilder();
+		assertEquals(200, post("?variant=classic", PUZZLE, answer));
+		SudokuBoard board = SudokuVariant.CLASSIC.create();
+		board.readCells(PUZZLE.getBytes(StandardCharsets.US_ASCII), 0);
+		byte[] solution = new byte[board.getCellCount()];
+		board.solve().iterator().next().writeCells(solution, 0);
+		assertEquals(new String(solution, StandardCharsets.US_ASCII) + "\n", answer.toString());
+	}
+
+	@Test
+	public void rejectsInvalidPuzzles() throws IOException {
+		assertEquals(400, post("?variant=classic", "123\n", new StringBuilder()));
+		assertEquals(400, post("?variant=nothing", PUZZLE, new StringBuilder()));
+	}
+
+	/**
+	 * The only permit is not taken by a client that has sent part of its puzzle and then stalls
+	 */
+	@Test
+	public void stalledUploadsDoNotTakePermits() throws IOException, InterruptedException {
+		try (Socket stalled = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+			OutputStream output = stalled.getOutputStream();
+			output.write(("POST /solve HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + PUZZLE.length() + "\r\n\r\n"
+					+ PUZZLE.substring(0, 10)).getBytes(StandardCharsets.US_ASCII));
+			output.flush();
+			Thread.sleep(200);
+			assertEquals(200, post("", PUZZLE, new StringBuilder()));
+		}
+	}
+
+}
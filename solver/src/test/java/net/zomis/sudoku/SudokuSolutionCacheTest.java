@@ -0,0 +1,157 @@
+package net.zomis.sudoku;
+import static net.zomis.sudoku.SudokuSatTest.cells;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SudokuSolutionCacheTest {
+
+	/**
+	 * Relabels the digits, shuffles the rows within each band and the columns within each stack, and transposes
+	 * the board half of the time
+	 */
+	private static SudokuBoard transform(SudokuBoard board, Random random) {
+		int[] digits = shuffled(random, 1, 9);
+		int[] rows = lines(random);
+		int[] columns = lines(random);
+		boolean transposed = random.nextBoolean();
+		SudokuBoard result = SudokuFactory.classicWith3x3Boxes();
+		for (int y = 0; y < 9; y++) {
+			for (int x = 0; x < 9; x++) {
+				int source = transposed ? board.topology().index(rows[y], columns[x]) : board.topology().index(columns[x], rows[y]);
+				int value = board.grid().value(source);
+				result.setValue(result.topology().index(x, y), value == SudokuTile.CLEARED ? value : digits[value - 1]);
+			}
+		}
+		return result;
+	}
+
+	private static int[] shuffled(Random random, int first, int count) {
+		List<Integer> values = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+			values.add(first + i);
+		Collections.shuffle(values, random);
+		return values.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * @return The source line of each line, only moving lines within their band
+	 */
+	private static int[] lines(Random random) {
+		int[] lines = new int[9];
+		for (int band = 0; band < 3; band++) {
+			int[] order = shuffled(random, band * 3, 3);
+			System.arraycopy(order, 0, lines, band * 3, 3);
+		}
+		return lines;
+	}
+
+	private static Set<String> cellSet(Collection<SudokuBoard> boards) {
+		Set<String> result = new HashSet<>();
+		for (SudokuBoard board : boards)
+			result.add(cells(board));
+		return result;
+	}
+
+	@Test
+	public void equivalentPuzzlesHaveTheSameCanonicalForm() {
+		Random random = new Random(5);
+		for (SudokuBoard board : Arrays.asList(SudokuSolver.classic(), SudokuSolver.hard(), SudokuSolver.incompleteClassic())) {
+			byte[] expected = SudokuSolutionCache.Transform.canonical(board.grid()).apply(board.grid());
+			for (int i = 0; i < 20; i++) {
+				SudokuBoard other = transform(board, random);
+				assertArrayEquals(expected, SudokuSolutionCache.Transform.canonical(other.grid()).apply(other.grid()));
+			}
+		}
+	}
+
+	@Test
+	public void differentPuzzlesHaveDifferentCanonicalForms() {
+		SudokuBoard classic = SudokuSolver.classic();
+		SudokuBoard incomplete = SudokuSolver.incompleteClassic();
+		assertFalse(Arrays.equals(SudokuSolutionCache.Transform.canonical(classic.grid()).apply(classic.grid()),
+				SudokuSolutionCache.Transform.canonical(incomplete.grid()).apply(incomplete.grid())));
+	}
+
+	/**
+	 * Each transformed puzzle hits the cache, and gets the solutions of the transformed puzzle back
+	 */
+	@Test
+	public void transformedPuzzlesGetTheirOwnSolutions() {
+		Random random = new Random(6);
+		SudokuSolutionCache cache = new SudokuSolutionCache(10);
+		for (SudokuBoard board : Arrays.asList(SudokuSolver.hard(), SudokuSolver.incompleteClassic())) {
+			long misses = cache.getMisses();
+			Collection<SudokuBoard> original = cache.solve(new SudokuBoard(board));
+			assertEquals(misses + 1, cache.getMisses());
+			for (int i = 0; i < 10; i++) {
+				SudokuBoard other = transform(board, random);
+				Set<String> expected = cellSet(new SudokuBoard(other).solve());
+				long hits = cache.getHits();
+				Collection<SudokuBoard> solutions = cache.solve(other);
+				assertEquals(hits + 1, cache.getHits());
+				assertEquals(original.size(), solutions.size());
+				assertEquals(expected, cellSet(solutions));
+			}
+		}
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void evictsTheLeastRecentlyUsed() {
+		SudokuSolutionCache cache = new SudokuSolutionCache(2);
+		SudokuBoard a = SudokuSolver.classic();
+		SudokuBoard b = SudokuSolver.hard();
+		SudokuBoard c = SudokuSolver.small();
+		cache.solve(new SudokuBoard(a));
+		cache.solve(new SudokuBoard(b));
+		cache.solve(new SudokuBoard(a));
+		assertEquals(1, cache.getHits());
+		cache.solve(new SudokuBoard(c));
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, cache.size());
+
+		cache.solve(new SudokuBoard(a));
+		cache.solve(new SudokuBoard(c));
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getEvictions());
+		cache.solve(new SudokuBoard(b));
+		assertEquals(3, cache.getHits());
+		assertEquals(4, cache.getMisses());
+		assertEquals(2, cache.getEvictions());
+		assertEquals(2, cache.getMaxSize());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void otherLayoutsOnlyMatchExactly() {
+		SudokuSolutionCache cache = new SudokuSolutionCache(10);
+		Set<String> expected = cellSet(SudokuSolver.hyper().solve());
+		assertEquals(expected, cellSet(cache.solve(SudokuSolver.hyper())));
+		assertEquals(expected, cellSet(cache.solve(SudokuSolver.hyper())));
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void boardsWithConstraintsAreNotCached() {
+		SudokuSolutionCache cache = new SudokuSolutionCache(10);
+		SudokuBoard board = SudokuSolver.classic();
+		board.createLessThan(board.tile(0, 0), board.tile(1, 0));
+		cache.solve(board);
+		cache.solve(board);
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getHits());
+	}
+
+}
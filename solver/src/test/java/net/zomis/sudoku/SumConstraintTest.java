@@ -0,0 +1,142 @@
+package net.zomis.sudoku;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class SumConstraintTest {
+
+	private static final int	MAX_VALUE	= 9;
+
+	private static long randomCandidates(Random random) {
+		long candidates = 0;
+		while (candidates == 0)
+			candidates = random.nextLong() & SudokuGrid.allValuesMask(MAX_VALUE);
+		return candidates;
+	}
+
+	/**
+	 * @return Tiles with random candidates, some of which have one of them as their value
+	 */
+	static ArrayDomains randomDomains(Random random, int size) {
+		long[] candidates = new long[size];
+		for (int cell = 0; cell < size; cell++)
+			candidates[cell] = randomCandidates(random);
+		ArrayDomains domains = new ArrayDomains(MAX_VALUE, candidates);
+		for (int cell = 0; cell < size; cell++) {
+			if (random.nextInt(4) == 0)
+				domains.place(cell, SudokuGrid.singleValue(Long.lowestOneBit(candidates[cell])));
+		}
+		return domains;
+	}
+
+	/**
+	 * Checks that propagation keeps every value that is part of a solution, and only fails if there is none
+	 *
+	 * @return The candidates after propagation, or null if it failed
+	 */
+	static long[] assertSound(Constraint constraint, ArrayDomains domains) {
+		long[] before = new long[domains.size()];
+		for (int cell = 0; cell < before.length; cell++)
+			before[cell] = domains.candidates(cell);
+		long[] supported = domains.supported(constraint);
+		SudokuProgress result = constraint.propagate(domains);
+		String message = constraint + " on " + Arrays.toString(before);
+		if (result == SudokuProgress.FAILED) {
+			assertArrayEquals(message, new long[before.length], supported);
+			return null;
+		}
+		long[] after = new long[before.length];
+		boolean changed = false;
+		for (int cell = 0; cell < before.length; cell++) {
+			after[cell] = domains.candidates(cell);
+			assertEquals(message + " removed a solution of tile " + cell, supported[cell], supported[cell] & after[cell]);
+			changed |= after[cell] != before[cell];
+		}
+		assertEquals(message, changed ? SudokuProgress.PROGRESS : SudokuProgress.NO_PROGRESS, result);
+		return after;
+	}
+
+	static long[] assertSound(Constraint constraint, long... candidates) {
+		return assertSound(constraint, new ArrayDomains(MAX_VALUE, candidates));
+	}
+
+	/**
+	 * Solves an empty 4x4 board with a constraint and compares it with the solutions of the board without it
+	 */
+	static void assertBoard(Constraint constraint, Predicate<SudokuBoard> accepts) {
+		SudokuBoard board = SudokuFactory.sizeAndBoxes(4, 4, 2, 2);
+		Set<String> expected = SudokuFactory.sizeAndBoxes(4, 4, 2, 2).solve().stream()
+				.filter(accepts).map(SudokuSatTest::cells).collect(Collectors.toSet());
+		board.addConstraint(constraint);
+		Set<String> solutions = board.solve().stream().map(SudokuSatTest::cells).collect(Collectors.toSet());
+		assertEquals(expected, solutions);
+		assertEquals(expected.size(), board.countSolutions(Long.MAX_VALUE));
+	}
+
+	private static int[] cells(int count) {
+		int[] cells = new int[count];
+		for (int i = 0; i < count; i++)
+			cells[i] = i;
+		return cells;
+	}
+
+	@Test
+	public void randomCagesAgainstBruteForce() {
+		Random random = new Random(8);
+		for (int i = 0; i < 2000; i++) {
+			int size = 1 + random.nextInt(4);
+			int sum = size + random.nextInt(size * (MAX_VALUE - 1) + 1);
+			assertSound(new SumConstraint(sum, random.nextBoolean(), cells(size)), randomDomains(random, size));
+		}
+	}
+
+	/**
+	 * Without holes in the candidates and without requiring different values, the bounds leave exactly the values
+	 * that are part of a solution
+	 */
+	@Test
+	public void boundsAreExactForRanges() {
+		Random random = new Random(9);
+		for (int i = 0; i < 2000; i++) {
+			int size = 1 + random.nextInt(4);
+			long[] candidates = new long[size];
+			for (int cell = 0; cell < size; cell++) {
+				int from = 1 + random.nextInt(MAX_VALUE);
+				candidates[cell] = SumConstraint.range(from, from + random.nextInt(MAX_VALUE - from + 1));
+			}
+			SumConstraint cage = new SumConstraint(size + random.nextInt(size * (MAX_VALUE - 1) + 1), false, cells(size));
+			long[] after = assertSound(cage, candidates);
+			if (after != null)
+				assertArrayEquals(cage + " on " + Arrays.toString(candidates),
+						new ArrayDomains(MAX_VALUE, candidates).supported(cage), after);
+		}
+	}
+
+	@Test
+	public void differentValuesOfASmallSum() {
+		long all = SudokuGrid.allValuesMask(MAX_VALUE);
+		assertArrayEquals(new long[] { 3, 3 }, assertSound(new SumConstraint(3, true, 0, 1), all, all));
+		assertArrayEquals(new long[] { 7, 7, 7 }, assertSound(new SumConstraint(6, true, 0, 1, 2), all, all, all));
+		assertEquals(null, assertSound(new SumConstraint(5, true, 0, 1), 2, 2));
+	}
+
+	@Test
+	public void killerCage() {
+		// Cells 5, 6 and 10 are (1, 1), (2, 1) and (2, 2), spanning three boxes
+		assertBoard(new SumConstraint(9, true, 5, 6, 10), board -> {
+			int a = board.grid().value(5);
+			int b = board.grid().value(6);
+			int c = board.grid().value(10);
+			return a + b + c == 9 && a != b && b != c && a != c;
+		});
+		assertBoard(new SumConstraint(4, false, 0, 15), board -> board.grid().value(0) + board.grid().value(15) == 4);
+	}
+
+}